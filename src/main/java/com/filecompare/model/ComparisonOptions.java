@@ -0,0 +1,57 @@
+package com.filecompare.model;
+
+public class ComparisonOptions {
+    private boolean failFast;
+    private int maxDifferences;
+    private boolean identityOnly;
+
+    public ComparisonOptions() {
+        this.failFast = false;
+        this.maxDifferences = 0;
+        this.identityOnly = false;
+    }
+
+    // Reads run-level options, e.g. mvn test -Dcompare.failFast=true -Dcompare.maxDifferences=50
+    public static ComparisonOptions fromSystemProperties() {
+        ComparisonOptions options = new ComparisonOptions();
+        options.setFailFast(Boolean.getBoolean("compare.failFast"));
+        options.setMaxDifferences(Integer.getInteger("compare.maxDifferences", 0));
+        options.setIdentityOnly(Boolean.getBoolean("compare.identityOnly"));
+        return options;
+    }
+
+    // Getters and Setters
+    public boolean isFailFast() {
+        return failFast;
+    }
+
+    public void setFailFast(boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    public int getMaxDifferences() {
+        return maxDifferences;
+    }
+
+    // 0 or less means no limit on the total number of recorded differences
+    public void setMaxDifferences(int maxDifferences) {
+        this.maxDifferences = maxDifferences;
+    }
+
+    public boolean isIdentityOnly() {
+        return identityOnly;
+    }
+
+    public void setIdentityOnly(boolean identityOnly) {
+        this.identityOnly = identityOnly;
+    }
+
+    @Override
+    public String toString() {
+        return "ComparisonOptions{" +
+                "failFast=" + failFast +
+                ", maxDifferences=" + maxDifferences +
+                ", identityOnly=" + identityOnly +
+                '}';
+    }
+}
@@ -10,6 +10,7 @@ public class ComparisonResult {
     private int differenceCount;
     private List<String> differences;
     private String errorMessage;
+    private boolean truncated;
 
     public ComparisonResult(String fileName, String fileType) {
         this.fileName = fileName;
@@ -73,6 +74,14 @@ public class ComparisonResult {
         this.errorMessage = errorMessage;
     }
 
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
     @Override
     public String toString() {
         return "ComparisonResult{" +
@@ -81,6 +90,7 @@ public class ComparisonResult {
                 ", identical=" + identical +
                 ", differenceCount=" + differenceCount +
                 ", errorMessage='" + errorMessage + '\'' +
+                ", truncated=" + truncated +
                 '}';
     }
 }
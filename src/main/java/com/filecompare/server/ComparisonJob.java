@@ -0,0 +1,175 @@
+package com.filecompare.server;
+
+import com.filecompare.model.ComparisonOptions;
+import com.filecompare.model.ComparisonResult;
+import com.filecompare.utils.FileComparator;
+import com.filecompare.utils.ZipExtractor;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class ComparisonJob implements Runnable {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, CANCELLED, FAILED
+    }
+
+    private final String id;
+    private final String sourcePath;
+    private final String targetPath;
+    private final ComparisonOptions options;
+    private final File jobDir;
+    private final CountDownLatch finished;
+    private volatile Status status;
+    private volatile boolean cancelRequested;
+    private volatile FileComparator comparator;
+    private volatile Future<?> future;
+    private final List<ComparisonResult> results;
+    private volatile String summary;
+    private volatile String errorMessage;
+
+    public ComparisonJob(String id, String sourcePath, String targetPath, ComparisonOptions options, File jobDir) {
+        this.id = id;
+        this.sourcePath = sourcePath;
+        this.targetPath = targetPath;
+        this.options = options;
+        this.jobDir = jobDir;
+        this.finished = new CountDownLatch(1);
+        this.status = Status.QUEUED;
+        this.results = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    @Override
+    public void run() {
+        synchronized (this) {
+            if (cancelRequested) {
+                finish(Status.CANCELLED);
+                return;
+            }
+            status = Status.RUNNING;
+        }
+
+        // Cleanup happens before the job is marked finished, so eviction never races with it
+        Status finalStatus = Status.FAILED;
+        try {
+            String sourceDir = ZipExtractor.extractIfArchive(sourcePath, new File(jobDir, "source").getPath());
+            if (cancelRequested) {
+                finalStatus = Status.CANCELLED;
+                return;
+            }
+            String targetDir = ZipExtractor.extractIfArchive(targetPath, new File(jobDir, "target").getPath());
+
+            FileComparator jobComparator = new FileComparator(sourceDir, targetDir,
+                    new File(jobDir, "reports").getPath(), options);
+            // Results are published file by file so clients can read them while the job runs
+            jobComparator.setResultListener(results::add);
+            synchronized (this) {
+                // A cancel() during extraction found no comparator to stop
+                if (cancelRequested) {
+                    finalStatus = Status.CANCELLED;
+                    return;
+                }
+                comparator = jobComparator;
+            }
+
+            jobComparator.compareAllFiles();
+            jobComparator.generateReport();
+            summary = jobComparator.buildSummary();
+
+            finalStatus = cancelRequested ? Status.CANCELLED : Status.COMPLETED;
+        } catch (Exception e) {
+            errorMessage = "Error running comparison job: " + e.getMessage();
+        } finally {
+            deleteExtractedTrees();
+            finish(finalStatus);
+        }
+    }
+
+    // Only the results and reports are kept once a job is done, not the extracted archives
+    private void deleteExtractedTrees() {
+        try {
+            FileUtils.deleteDirectory(new File(jobDir, "source"));
+            FileUtils.deleteDirectory(new File(jobDir, "target"));
+        } catch (IOException e) {
+            System.err.println("Could not clean up job " + id + ": " + e.getMessage());
+        }
+    }
+
+    private void finish(Status finalStatus) {
+        status = finalStatus;
+        finished.countDown();
+    }
+
+    public synchronized void cancel() {
+        cancelRequested = true;
+        if (comparator != null) {
+            comparator.cancel();
+        }
+        if (status == Status.QUEUED && future != null && future.cancel(false)) {
+            finish(Status.CANCELLED);
+        }
+    }
+
+    public boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    public boolean isFinished() {
+        return finished.getCount() == 0;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public String getSourcePath() {
+        return sourcePath;
+    }
+
+    public String getTargetPath() {
+        return targetPath;
+    }
+
+    public ComparisonOptions getOptions() {
+        return options;
+    }
+
+    public File getJobDir() {
+        return jobDir;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setFuture(Future<?> future) {
+        this.future = future;
+    }
+
+    public List<ComparisonResult> getResults() {
+        return getResults(0);
+    }
+
+    // The results published so far, starting at the given position
+    public List<ComparisonResult> getResults(int offset) {
+        synchronized (results) {
+            return new ArrayList<>(results.subList(Math.min(offset, results.size()), results.size()));
+        }
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public String getErrorMessage() {
+        return errorMessage;
+    }
+}
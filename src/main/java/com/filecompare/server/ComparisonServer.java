@@ -0,0 +1,435 @@
+package com.filecompare.server;
+
+import com.filecompare.model.ComparisonOptions;
+import com.filecompare.model.ComparisonResult;
+import com.filecompare.utils.FileComparator;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/*
+ * Keeps one warm JVM and runs comparison jobs submitted over a local HTTP API:
+ *
+ *   POST   /jobs               source=...&target=...[&failFast=true&maxDifferences=N&identityOnly=true]
+ *   GET    /jobs/{id}[?wait=S] job status, optionally waiting up to S seconds for it to finish
+ *   GET    /jobs/{id}/results[?offset=N]  per-file results as JSON, from the N-th result on
+ *   GET    /jobs/{id}/report   summary report as text
+ *   DELETE /jobs/{id}          cancel a queued or running job, or discard a finished one
+ *
+ * Results are published as each file is compared. While a job runs, /results returns what is done so far,
+ * with X-Job-Status and X-Next-Offset headers to continue from, and /report a partial summary.
+ * Source and target may be zip archives or directories inside --root, the working directory by default.
+ * Extracted archives are removed when a job finishes, and only the newest --retain finished jobs are kept.
+ * Job directories left in --work-dir by an earlier server are removed on startup.
+ */
+public class ComparisonServer {
+    private static final int DEFAULT_PORT = 8765;
+    private static final int DEFAULT_RETAINED_JOBS = 100;
+
+    private final HttpServer httpServer;
+    private final ThreadPoolExecutor jobExecutor;
+    private final ExecutorService requestExecutor;
+    private final Map<String, ComparisonJob> jobs;
+    private final AtomicLong jobSequence;
+    private final File workDir;
+    private final int maxRetainedJobs;
+    private final Path allowedRoot;
+
+    public ComparisonServer(int port, int maxConcurrentJobs, int maxQueuedJobs, String workDir) throws IOException {
+        this(port, maxConcurrentJobs, maxQueuedJobs, DEFAULT_RETAINED_JOBS, workDir, ".");
+    }
+
+    public ComparisonServer(int port, int maxConcurrentJobs, int maxQueuedJobs, int maxRetainedJobs,
+                            String workDir, String allowedRoot) throws IOException {
+        this.jobExecutor = new ThreadPoolExecutor(maxConcurrentJobs, maxConcurrentJobs, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(maxQueuedJobs));
+        this.requestExecutor = Executors.newCachedThreadPool();
+        this.jobs = new ConcurrentHashMap<>();
+        this.jobSequence = new AtomicLong();
+        this.workDir = new File(workDir);
+        this.workDir.mkdirs();
+        this.maxRetainedJobs = maxRetainedJobs;
+        this.allowedRoot = new File(allowedRoot).getCanonicalFile().toPath();
+
+        // Job ids start at 1 again, so directories of an earlier server would be reused or never evicted
+        File[] staleJobDirs = this.workDir.listFiles((dir, name) -> name.startsWith("job-"));
+        if (staleJobDirs != null) {
+            for (File staleJobDir : staleJobDirs) {
+                FileUtils.deleteDirectory(staleJobDir);
+            }
+        }
+
+        // Only listen on the loopback interface; handle() also rejects other Host headers against DNS rebinding
+        this.httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.httpServer.createContext("/jobs", this::handle);
+        this.httpServer.setExecutor(requestExecutor);
+    }
+
+    public void start() {
+        httpServer.start();
+    }
+
+    // Waits a while for running jobs to notice the cancel, so their directories are cleaned up
+    public void stop() {
+        httpServer.stop(0);
+        for (ComparisonJob job : jobs.values()) {
+            job.cancel();
+        }
+        jobExecutor.shutdownNow();
+        requestExecutor.shutdownNow();
+        try {
+            jobExecutor.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    public ComparisonJob submit(String sourcePath, String targetPath, ComparisonOptions options) {
+        evictFinishedJobs();
+
+        String id = String.valueOf(jobSequence.incrementAndGet());
+        ComparisonJob job = new ComparisonJob(id, sourcePath, targetPath, options, new File(workDir, "job-" + id));
+
+        jobs.put(id, job);
+        try {
+            job.setFuture(jobExecutor.submit(job));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(id);
+            throw e;
+        }
+        return job;
+    }
+
+    // Keeps at most maxRetainedJobs finished jobs, dropping the oldest along with their reports
+    private synchronized void evictFinishedJobs() {
+        List<ComparisonJob> finished = jobs.values().stream()
+                .filter(ComparisonJob::isFinished)
+                .sorted(Comparator.comparingLong(job -> Long.parseLong(job.getId())))
+                .collect(Collectors.toList());
+
+        for (int i = 0; i < finished.size() - maxRetainedJobs; i++) {
+            discard(finished.get(i));
+        }
+    }
+
+    private void discard(ComparisonJob job) {
+        jobs.remove(job.getId());
+        try {
+            FileUtils.deleteDirectory(job.getJobDir());
+        } catch (IOException e) {
+            System.err.println("Could not delete " + job.getJobDir() + ": " + e.getMessage());
+        }
+    }
+
+    public ComparisonJob getJob(String id) {
+        return jobs.get(id);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!isLocalHost(exchange.getRequestHeaders().getFirst("Host"))) {
+                sendText(exchange, 403, "Only requests for localhost are accepted\n");
+                return;
+            }
+
+            String[] parts = exchange.getRequestURI().getPath().replaceAll("^/+|/+$", "").split("/");
+            String method = exchange.getRequestMethod();
+
+            if (parts.length == 1 && "POST".equals(method)) {
+                handleSubmit(exchange);
+                return;
+            }
+            if (parts.length < 2 || parts.length > 3) {
+                sendText(exchange, 404, "Unknown resource\n");
+                return;
+            }
+
+            ComparisonJob job = jobs.get(parts[1]);
+            if (job == null) {
+                sendText(exchange, 404, "Unknown job: " + parts[1] + "\n");
+                return;
+            }
+
+            String resource = parts.length == 3 ? parts[2] : "";
+            if ("GET".equals(method) && resource.isEmpty()) {
+                String wait = parseParameters(exchange.getRequestURI().getRawQuery()).get("wait");
+                if (wait != null) {
+                    job.awaitCompletion(Long.parseLong(wait), TimeUnit.SECONDS);
+                }
+                sendJson(exchange, 200, jobToJson(job));
+            } else if ("GET".equals(method) && "results".equals(resource)) {
+                handleResults(exchange, job);
+            } else if ("GET".equals(method) && "report".equals(resource)) {
+                handleReport(exchange, job);
+            } else if ("DELETE".equals(method) && resource.isEmpty()) {
+                handleDelete(exchange, job);
+            } else {
+                sendText(exchange, 405, "Method not allowed\n");
+            }
+        } catch (NumberFormatException e) {
+            sendText(exchange, 400, "Invalid number: " + e.getMessage() + "\n");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendText(exchange, 503, "Server is shutting down\n");
+        } catch (Exception e) {
+            sendText(exchange, 500, "Error handling request: " + e.getMessage() + "\n");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleSubmit(HttpExchange exchange) throws IOException {
+        Map<String, String> params = parseParameters(exchange.getRequestURI().getRawQuery());
+        try (InputStream body = exchange.getRequestBody()) {
+            params.putAll(parseParameters(new String(body.readAllBytes(), StandardCharsets.UTF_8)));
+        }
+
+        String source = params.get("source");
+        String target = params.get("target");
+        if (source == null || target == null) {
+            sendText(exchange, 400, "Both source and target are required\n");
+            return;
+        }
+
+        if (!isAllowedPath(source) || !isAllowedPath(target)) {
+            sendText(exchange, 403, "Source and target must be inside " + allowedRoot + "\n");
+            return;
+        }
+
+        ComparisonOptions options = new ComparisonOptions();
+        options.setFailFast(Boolean.parseBoolean(params.get("failFast")));
+        options.setMaxDifferences(Integer.parseInt(params.getOrDefault("maxDifferences", "0")));
+        options.setIdentityOnly(Boolean.parseBoolean(params.get("identityOnly")));
+
+        try {
+            ComparisonJob job = submit(source, target, options);
+            exchange.getResponseHeaders().set("Location", "/jobs/" + job.getId());
+            sendJson(exchange, 202, jobToJson(job));
+        } catch (RejectedExecutionException e) {
+            sendText(exchange, 503, "Job queue is full, retry later\n");
+        }
+    }
+
+    private void handleResults(HttpExchange exchange, ComparisonJob job) throws IOException {
+        Map<String, String> params = parseParameters(exchange.getRequestURI().getRawQuery());
+        int offset = Integer.parseInt(params.getOrDefault("offset", "0"));
+        if (offset < 0) {
+            sendText(exchange, 400, "Offset must not be negative\n");
+            return;
+        }
+
+        // Status is read first, so a finished status guarantees the page below holds the last results
+        ComparisonJob.Status status = job.getStatus();
+        List<ComparisonResult> page = job.getResults(offset);
+        exchange.getResponseHeaders().set("X-Job-Status", status.name());
+        exchange.getResponseHeaders().set("X-Next-Offset", String.valueOf(offset + page.size()));
+        sendJson(exchange, 200, resultsToJson(page));
+    }
+
+    private void handleReport(HttpExchange exchange, ComparisonJob job) throws IOException {
+        if (job.getSummary() != null) {
+            sendText(exchange, 200, job.getSummary());
+        } else if (job.getStatus() == ComparisonJob.Status.FAILED) {
+            sendText(exchange, 409, "Report not available, job failed: " + job.getErrorMessage() + "\n");
+        } else {
+            sendText(exchange, 200, "Partial report, job is " + job.getStatus() + "\n\n"
+                    + FileComparator.buildSummary(job.getResults(), null));
+        }
+    }
+
+    private void handleDelete(HttpExchange exchange, ComparisonJob job) throws IOException {
+        if (!job.isFinished()) {
+            job.cancel();
+            sendJson(exchange, 202, jobToJson(job));
+            return;
+        }
+
+        discard(job);
+        sendJson(exchange, 200, jobToJson(job));
+    }
+
+    // A page on another site can resolve its own host name to 127.0.0.1, but cannot change the Host it sends
+    private static boolean isLocalHost(String host) {
+        if (host == null) {
+            return false;
+        }
+        String name = host.replaceAll(":\\d+$", "");
+        return "localhost".equalsIgnoreCase(name) || "127.0.0.1".equals(name) || "[::1]".equals(name);
+    }
+
+    private boolean isAllowedPath(String path) throws IOException {
+        return new File(path).getCanonicalFile().toPath().startsWith(allowedRoot);
+    }
+
+    private static Map<String, String> parseParameters(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null || query.isEmpty()) {
+            return params;
+        }
+
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq >= 0 ? pair.substring(0, eq) : pair;
+            String value = eq >= 0 ? pair.substring(eq + 1) : "";
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static String jobToJson(ComparisonJob job) {
+        StringBuilder json = new StringBuilder();
+        json.append("{\"id\":").append(quote(job.getId()));
+        json.append(",\"status\":").append(quote(job.getStatus().name()));
+        json.append(",\"source\":").append(quote(job.getSourcePath()));
+        json.append(",\"target\":").append(quote(job.getTargetPath()));
+        // Counts of a running job cover the files compared so far
+        List<ComparisonResult> results = job.getResults();
+        long identicalCount = results.stream().filter(ComparisonResult::isIdentical).count();
+        json.append(",\"filesCompared\":").append(results.size());
+        json.append(",\"identicalFiles\":").append(identicalCount);
+        json.append(",\"filesWithDifferences\":").append(results.size() - identicalCount);
+        if (job.getErrorMessage() != null) {
+            json.append(",\"error\":").append(quote(job.getErrorMessage()));
+        }
+        json.append("}\n");
+        return json.toString();
+    }
+
+    private static String resultsToJson(List<ComparisonResult> results) {
+        StringBuilder json = new StringBuilder("[");
+        for (ComparisonResult result : results) {
+            if (json.length() > 1) {
+                json.append(",");
+            }
+            json.append("\n{\"fileName\":").append(quote(result.getFileName()));
+            json.append(",\"fileType\":").append(quote(result.getFileType()));
+            json.append(",\"identical\":").append(result.isIdentical());
+            json.append(",\"differenceCount\":").append(result.getDifferenceCount());
+            json.append(",\"truncated\":").append(result.isTruncated());
+            if (result.getErrorMessage() != null) {
+                json.append(",\"error\":").append(quote(result.getErrorMessage()));
+            }
+            json.append(",\"differences\":[");
+            for (int i = 0; i < result.getDifferences().size(); i++) {
+                json.append(i > 0 ? "," : "").append(quote(result.getDifferences().get(i)));
+            }
+            json.append("]}");
+        }
+        json.append("\n]\n");
+        return json.toString();
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"':
+                    quoted.append("\\\"");
+                    break;
+                case '\\':
+                    quoted.append("\\\\");
+                    break;
+                case '\n':
+                    quoted.append("\\n");
+                    break;
+                case '\r':
+                    quoted.append("\\r");
+                    break;
+                case '\t':
+                    quoted.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append("\"").toString();
+    }
+
+    private static void sendJson(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, "application/json; charset=utf-8", body);
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String body) throws IOException {
+        send(exchange, status, "text/plain; charset=utf-8", body);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(bytes);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        int queue = 100;
+        int retain = DEFAULT_RETAINED_JOBS;
+        String workDir = "temp/server";
+        String root = ".";
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--workers":
+                    workers = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--queue":
+                    queue = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--retain":
+                    retain = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--work-dir":
+                    workDir = args[i + 1];
+                    break;
+                case "--root":
+                    root = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        ComparisonServer server = new ComparisonServer(port, workers, queue, retain, workDir, root);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+        server.start();
+        System.out.println("Comparison server listening on http://localhost:" + server.getPort()
+                + "/jobs (workers=" + workers + ", queue=" + queue + ")");
+    }
+}
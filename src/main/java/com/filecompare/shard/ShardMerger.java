@@ -0,0 +1,116 @@
+package com.filecompare.shard;
+
+import com.filecompare.model.ComparisonResult;
+import com.filecompare.utils.FileComparator;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Combines the outputs of all shards of one run into the standard summary report.
+ *
+ *   java -cp <classpath> com.filecompare.shard.ShardMerger --report-dir reports temp/shards/shard-*.bin
+ */
+public class ShardMerger {
+    private final Map<String, ComparisonResult> results;
+    private final List<Integer> stoppedShards;
+    private ShardResultFile firstShard;
+    private boolean[] seenShards;
+
+    public ShardMerger() {
+        this.results = new TreeMap<>();
+        this.stoppedShards = new ArrayList<>();
+    }
+
+    public void add(ShardResultFile shard) throws IOException {
+        if (seenShards == null) {
+            firstShard = shard;
+            seenShards = new boolean[shard.getShardCount()];
+        } else if (!firstShard.getRunId().equals(shard.getRunId())) {
+            // A shard of an earlier or later run would mix two different comparisons into one report
+            throw new IOException("Shard " + shard.getShardIndex() + " belongs to run " + shard.getRunId()
+                    + ", expected " + firstShard.getRunId());
+        } else if (!firstShard.getOptions().toString().equals(shard.getOptions().toString())) {
+            throw new IOException("Shard " + shard.getShardIndex() + " was compared with " + shard.getOptions()
+                    + ", expected " + firstShard.getOptions());
+        } else if (seenShards.length != shard.getShardCount()) {
+            throw new IOException("Shard " + shard.getShardIndex() + " was produced for " + shard.getShardCount()
+                    + " shards, expected " + seenShards.length);
+        }
+        if (seenShards[shard.getShardIndex()]) {
+            throw new IOException("Shard " + shard.getShardIndex() + " was given more than once");
+        }
+        seenShards[shard.getShardIndex()] = true;
+
+        if (shard.isStoppedEarly()) {
+            stoppedShards.add(shard.getShardIndex());
+        }
+        for (ComparisonResult result : shard.getResults()) {
+            results.put(result.getFileName(), result);
+        }
+    }
+
+    // A missing shard would silently drop its files from the report, including missing-file findings
+    public List<ComparisonResult> getResults() throws IOException {
+        if (seenShards == null) {
+            throw new IOException("No shard results to merge");
+        }
+        for (int i = 0; i < seenShards.length; i++) {
+            if (!seenShards[i]) {
+                throw new IOException("Shard " + i + " of " + seenShards.length + " is missing");
+            }
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    public String buildSummary() throws IOException {
+        List<ComparisonResult> merged = getResults();
+        return FileComparator.buildSummary(merged, stoppedShards.isEmpty() ? null : "shards " + stoppedShards);
+    }
+
+    public void generateReport(String reportDir) throws IOException {
+        String summary = buildSummary();
+        new File(reportDir).mkdirs();
+
+        Path summaryPath = Paths.get(reportDir, "comparison_summary.txt");
+        Files.write(summaryPath, summary.getBytes());
+    }
+
+    public static ShardMerger merge(List<File> shardFiles) throws IOException {
+        ShardMerger merger = new ShardMerger();
+        for (File shardFile : shardFiles) {
+            merger.add(ShardResultFile.read(shardFile));
+        }
+        return merger;
+    }
+
+    public static void main(String[] args) throws IOException {
+        String reportDir = "reports";
+        List<File> shardFiles = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            if ("--report-dir".equals(args[i]) && i + 1 < args.length) {
+                reportDir = args[++i];
+            } else {
+                shardFiles.add(new File(args[i]));
+            }
+        }
+
+        if (shardFiles.isEmpty()) {
+            System.err.println("Usage: ShardMerger [--report-dir <dir>] <shard file>...");
+            System.exit(1);
+        }
+
+        ShardMerger merger = merge(shardFiles);
+        merger.generateReport(reportDir);
+        System.out.println("Merged " + shardFiles.size() + " shards, " + merger.getResults().size()
+                + " files, summary in " + reportDir + "/comparison_summary.txt");
+    }
+}
@@ -0,0 +1,185 @@
+package com.filecompare.shard;
+
+import com.filecompare.model.ComparisonOptions;
+import com.filecompare.model.ComparisonResult;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Binary partial results of one shard:
+ * magic, version, run id, shard index, shard count, the run's options, stopped-early flag, result count,
+ * then per result file name, type, identical, truncated, difference count, optional error and the differences.
+ */
+public class ShardResultFile {
+    private static final int MAGIC = 0x46435348;
+    private static final int VERSION = 2;
+
+    private final String runId;
+    private final int shardIndex;
+    private final int shardCount;
+    private final ComparisonOptions options;
+    private final boolean stoppedEarly;
+    private final List<ComparisonResult> results;
+
+    public ShardResultFile(String runId, int shardIndex, int shardCount, ComparisonOptions options,
+                           boolean stoppedEarly, List<ComparisonResult> results) {
+        this.runId = runId;
+        this.shardIndex = shardIndex;
+        this.shardCount = shardCount;
+        this.options = options;
+        this.stoppedEarly = stoppedEarly;
+        this.results = results;
+    }
+
+    public void write(File file) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Failed to create directory " + parent);
+        }
+
+        // Written under a temporary name so a crashed worker never leaves a truncated shard behind
+        File partial = new File(parent, file.getName() + ".part");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(partial)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, runId);
+            out.writeInt(shardIndex);
+            out.writeInt(shardCount);
+            out.writeBoolean(options.isFailFast());
+            out.writeInt(options.getMaxDifferences());
+            out.writeBoolean(options.isIdentityOnly());
+            out.writeBoolean(stoppedEarly);
+            out.writeInt(results.size());
+
+            for (ComparisonResult result : results) {
+                writeString(out, result.getFileName());
+                writeString(out, result.getFileType());
+                out.writeBoolean(result.isIdentical());
+                out.writeBoolean(result.isTruncated());
+                out.writeInt(result.getDifferenceCount());
+                out.writeBoolean(result.getErrorMessage() != null);
+                if (result.getErrorMessage() != null) {
+                    writeString(out, result.getErrorMessage());
+                }
+                out.writeInt(result.getDifferences().size());
+                for (String difference : result.getDifferences()) {
+                    writeString(out, difference);
+                }
+            }
+        }
+
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Failed to replace " + file);
+        }
+        if (!partial.renameTo(file)) {
+            throw new IOException("Failed to rename " + partial + " to " + file);
+        }
+    }
+
+    public static ShardResultFile read(File file) throws IOException {
+        long fileLength = file.length();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Not a shard result file: " + file);
+            }
+            int version = in.readInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported shard result version " + version + " in " + file);
+            }
+
+            String runId = readString(in, fileLength, file);
+            int shardIndex = in.readInt();
+            int shardCount = in.readInt();
+            if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+                throw new IOException("Invalid shard " + shardIndex + " of " + shardCount + " in " + file);
+            }
+            ComparisonOptions options = new ComparisonOptions();
+            options.setFailFast(in.readBoolean());
+            options.setMaxDifferences(in.readInt());
+            options.setIdentityOnly(in.readBoolean());
+            boolean stoppedEarly = in.readBoolean();
+            int count = readLength(in, fileLength, file);
+
+            List<ComparisonResult> results = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String fileName = readString(in, fileLength, file);
+                String fileType = readString(in, fileLength, file);
+                ComparisonResult result = new ComparisonResult(fileName, fileType);
+                result.setIdentical(in.readBoolean());
+                result.setTruncated(in.readBoolean());
+                int differenceCount = in.readInt();
+                if (in.readBoolean()) {
+                    result.setErrorMessage(readString(in, fileLength, file));
+                }
+
+                int listed = readLength(in, fileLength, file);
+                List<String> differences = new ArrayList<>(listed);
+                for (int j = 0; j < listed; j++) {
+                    differences.add(readString(in, fileLength, file));
+                }
+                result.setDifferences(differences);
+                result.setDifferenceCount(differenceCount);
+                results.add(result);
+            }
+
+            return new ShardResultFile(runId, shardIndex, shardCount, options, stoppedEarly, results);
+        }
+    }
+
+    // writeUTF is limited to 64 KB, which long CSV rows or XML differences can exceed
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, long fileLength, File file) throws IOException {
+        byte[] bytes = new byte[readLength(in, fileLength, file)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Every counted item takes at least one byte, so no valid count or length exceeds the file size;
+    // checking it keeps a corrupt file from sizing an allocation
+    private static int readLength(DataInputStream in, long fileLength, File file) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > fileLength) {
+            throw new IOException("Invalid count or length " + length + " in " + file);
+        }
+        return length;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public int getShardIndex() {
+        return shardIndex;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    public ComparisonOptions getOptions() {
+        return options;
+    }
+
+    public boolean isStoppedEarly() {
+        return stoppedEarly;
+    }
+
+    public List<ComparisonResult> getResults() {
+        return results;
+    }
+}
@@ -0,0 +1,138 @@
+package com.filecompare.shard;
+
+import com.filecompare.model.ComparisonOptions;
+import com.filecompare.model.ComparisonResult;
+import com.filecompare.utils.ComparisonControl;
+import com.filecompare.utils.FileComparator;
+import com.filecompare.utils.ZipExtractor;
+import org.apache.commons.io.FileUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.zip.CRC32;
+
+/*
+ * Compares one shard of the relative-path set and writes its partial results.
+ * A path always maps to the same shard on every host, so a file missing on either
+ * side is detected by the one worker that owns that path.
+ *
+ *   java -cp <classpath> com.filecompare.shard.ShardWorker --run-id nightly-42 --source preshot.zip \
+ *       --target postshot.zip --shard 0 --shards 4 --output temp/shards/shard-0.bin
+ *
+ * All workers of one run must share the run id, ShardMerger refuses shards of different runs.
+ * Run-level limits (-Dcompare.*) apply to each shard separately.
+ */
+public class ShardWorker {
+
+    // CRC32 of the UTF-8 path spreads similar names across shards and is the same in every JVM
+    public static int shardOf(String relativePath, int shardCount) {
+        CRC32 crc = new CRC32();
+        crc.update(relativePath.getBytes(StandardCharsets.UTF_8));
+        return (int) (crc.getValue() % shardCount);
+    }
+
+    public static ShardResultFile runShard(String runId, String sourcePath, String targetPath, int shardIndex,
+                                           int shardCount, ComparisonOptions options, String workDir)
+            throws IOException {
+        if (shardCount < 1 || shardIndex < 0 || shardIndex >= shardCount) {
+            throw new IllegalArgumentException("Invalid shard " + shardIndex + " of " + shardCount);
+        }
+
+        // Archives are reduced to this shard's entries while extracting, directories are read in place
+        File shardDir = new File(workDir, "shard-" + shardIndex);
+        Predicate<String> inShard = entryName -> shardOf(entryName, shardCount) == shardIndex;
+        try {
+            String sourceDir = ZipExtractor.extractIfArchive(sourcePath, new File(shardDir, "source").getPath(),
+                    inShard);
+            String targetDir = ZipExtractor.extractIfArchive(targetPath, new File(shardDir, "target").getPath(),
+                    inShard);
+
+            FileComparator comparator = new FileComparator(sourceDir, targetDir,
+                    new File(shardDir, "reports").getPath(), options);
+            ComparisonControl control = new ComparisonControl(options);
+
+            List<ComparisonResult> results = new ArrayList<>();
+            for (String relativePath : comparator.getAllRelativePaths()) {
+                if (shardOf(relativePath, shardCount) != shardIndex) {
+                    continue;
+                }
+                if (control.isCancelled()) {
+                    break;
+                }
+
+                ComparisonResult result = comparator.comparePath(relativePath, control);
+                if (result != null) {
+                    results.add(result);
+                }
+            }
+
+            return new ShardResultFile(runId, shardIndex, shardCount, options, control.isCancelled(), results);
+        } finally {
+            deleteShardDir(shardDir);
+        }
+    }
+
+    // Only the shard result file is kept, not the extracted entries
+    private static void deleteShardDir(File shardDir) {
+        try {
+            FileUtils.deleteDirectory(shardDir);
+        } catch (IOException e) {
+            System.err.println("Could not clean up " + shardDir + ": " + e.getMessage());
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String runId = null;
+        String source = null;
+        String target = null;
+        String output = null;
+        String workDir = "temp/shards";
+        int shardIndex = -1;
+        int shardCount = -1;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--run-id":
+                    runId = args[i + 1];
+                    break;
+                case "--source":
+                    source = args[i + 1];
+                    break;
+                case "--target":
+                    target = args[i + 1];
+                    break;
+                case "--shard":
+                    shardIndex = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--shards":
+                    shardCount = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--output":
+                    output = args[i + 1];
+                    break;
+                case "--work-dir":
+                    workDir = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if (runId == null || source == null || target == null || output == null || shardIndex < 0
+                || shardCount < 1) {
+            System.err.println("Usage: ShardWorker --run-id <id> --source <zip|dir> --target <zip|dir>"
+                    + " --shard <i> --shards <n> --output <file> [--work-dir <dir>]");
+            System.exit(1);
+        }
+
+        ShardResultFile shard = runShard(runId, source, target, shardIndex, shardCount,
+                ComparisonOptions.fromSystemProperties(), workDir);
+        shard.write(new File(output));
+        System.out.println("Shard " + shardIndex + " of " + shardCount + ": "
+                + shard.getResults().size() + " files compared, written to " + output);
+    }
+}
@@ -0,0 +1,133 @@
+package com.filecompare.shard;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/*
+ * Runs every shard in its own worker JVM on this host and merges the outputs.
+ * For several hosts, start ShardWorker on each with the same --run-id and --shards count and
+ * run ShardMerger over the collected shard files.
+ *
+ *   java -cp <classpath> com.filecompare.shard.ShardedComparison --source preshot.zip --target postshot.zip \
+ *       --shards 4 [--parallel 2] [--report-dir reports] [--work-dir temp/shards] [--worker-heap 2g]
+ */
+public class ShardedComparison {
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String source = null;
+        String target = null;
+        String reportDir = "reports";
+        String workDir = "temp/shards";
+        String workerHeap = null;
+        int shardCount = 2;
+        int parallel = -1;
+
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--source":
+                    source = args[i + 1];
+                    break;
+                case "--target":
+                    target = args[i + 1];
+                    break;
+                case "--shards":
+                    shardCount = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--parallel":
+                    parallel = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--report-dir":
+                    reportDir = args[i + 1];
+                    break;
+                case "--work-dir":
+                    workDir = args[i + 1];
+                    break;
+                case "--worker-heap":
+                    workerHeap = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if (source == null || target == null || shardCount < 1) {
+            System.err.println("Usage: ShardedComparison --source <zip|dir> --target <zip|dir> --shards <n>"
+                    + " [--parallel <p>] [--report-dir <dir>] [--work-dir <dir>] [--worker-heap <size>]");
+            System.exit(1);
+        }
+        if (parallel < 1) {
+            parallel = shardCount;
+        }
+
+        // Shard files left in the work directory by another run are rejected by the merge
+        String runId = UUID.randomUUID().toString();
+        List<File> shardFiles = new ArrayList<>();
+        List<Process> running = new ArrayList<>();
+        int failed = 0;
+
+        for (int shard = 0; shard < shardCount; shard++) {
+            File output = new File(workDir, "shard-" + shard + ".bin");
+            shardFiles.add(output);
+
+            if (running.size() >= parallel) {
+                failed += awaitWorker(running.remove(0));
+            }
+            running.add(startWorker(runId, source, target, shard, shardCount, output, workDir, workerHeap));
+        }
+        for (Process worker : running) {
+            failed += awaitWorker(worker);
+        }
+
+        if (failed > 0) {
+            System.err.println(failed + " shard worker(s) failed, no report written");
+            System.exit(1);
+        }
+
+        ShardMerger merger = ShardMerger.merge(shardFiles);
+        merger.generateReport(reportDir);
+        System.out.println("Merged " + shardCount + " shards, " + merger.getResults().size()
+                + " files, summary in " + reportDir + "/comparison_summary.txt");
+    }
+
+    private static Process startWorker(String runId, String source, String target, int shard, int shardCount,
+                                       File output, String workDir, String workerHeap) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        if (workerHeap != null) {
+            command.add("-Xmx" + workerHeap);
+        }
+        // Run-level options travel to the workers as the same system properties
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("compare.")) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        command.add("--run-id");
+        command.add(runId);
+        command.add("--source");
+        command.add(source);
+        command.add("--target");
+        command.add(target);
+        command.add("--shard");
+        command.add(String.valueOf(shard));
+        command.add("--shards");
+        command.add(String.valueOf(shardCount));
+        command.add("--output");
+        command.add(output.getPath());
+        command.add("--work-dir");
+        command.add(workDir);
+
+        return new ProcessBuilder(command).inheritIO().start();
+    }
+
+    private static int awaitWorker(Process worker) throws InterruptedException {
+        return worker.waitFor() == 0 ? 0 : 1;
+    }
+}
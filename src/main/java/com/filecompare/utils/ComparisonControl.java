@@ -0,0 +1,77 @@
+package com.filecompare.utils;
+
+import com.filecompare.model.ComparisonOptions;
+import com.filecompare.model.ComparisonResult;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ComparisonControl {
+    private final ComparisonOptions options;
+    private final AtomicInteger totalDifferences;
+    private volatile boolean cancelled;
+    private volatile String stopReason;
+
+    public ComparisonControl(ComparisonOptions options) {
+        this.options = options;
+        this.totalDifferences = new AtomicInteger();
+    }
+
+    public static ComparisonControl unlimited() {
+        return new ComparisonControl(new ComparisonOptions());
+    }
+
+    // Records a difference and returns true if the caller may keep comparing the current file
+    public boolean addDifference(ComparisonResult result, String difference) {
+        result.addDifference(difference);
+        recordDifference();
+        return !shouldStop(result);
+    }
+
+    // Counts a difference against the run-level limits without touching any result
+    public void recordDifference() {
+        int total = totalDifferences.incrementAndGet();
+        if (options.isFailFast()) {
+            stop("fail-fast, first difference found");
+        }
+        if (options.getMaxDifferences() > 0 && total >= options.getMaxDifferences()) {
+            stop("difference budget of " + options.getMaxDifferences() + " reached");
+        }
+    }
+
+    // Checked inside the comparators' loops; marks the result as incomplete when it stops them
+    public boolean shouldStop(ComparisonResult result) {
+        if (cancelled || (options.isIdentityOnly() && !result.isIdentical())) {
+            result.setTruncated(true);
+            return true;
+        }
+        return false;
+    }
+
+    public void cancel() {
+        stop("cancelled");
+    }
+
+    // The first reason wins, a later cancel() does not hide that the budget ran out
+    private synchronized void stop(String reason) {
+        if (!cancelled) {
+            stopReason = reason;
+            cancelled = true;
+        }
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    public String getStopReason() {
+        return stopReason;
+    }
+
+    public int getTotalDifferences() {
+        return totalDifferences.get();
+    }
+
+    public ComparisonOptions getOptions() {
+        return options;
+    }
+}
@@ -0,0 +1,289 @@
+package com.filecompare.utils;
+
+import com.filecompare.model.ComparisonOptions;
+import com.filecompare.model.ComparisonResult;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * Watch mode: compares both trees once, then keeps the last result per relative path and
+ * re-compares only the paths that are created, modified or deleted on either side.
+ * Bursts of events are collected until the trees have been quiet for the debounce period, or for at most
+ * the maximum batch delay, so a file that is written continuously does not hold back every other change.
+ * Run-level limits apply to each re-compared file on its own, there is no run for fail-fast to stop.
+ */
+public class ComparisonWatcher implements Closeable {
+    private final FileComparator comparator;
+    private final Path sourceRoot;
+    private final Path targetRoot;
+    private final long debounceMillis;
+    private final long maxBatchMillis;
+    private final WatchService watchService;
+    private final Map<WatchKey, Path> watchedDirs;
+    private final Map<String, ComparisonResult> results;
+    private volatile boolean rescanRequested;
+    private volatile long updateCount;
+
+    public ComparisonWatcher(String sourceDir, String targetDir, String reportDir, ComparisonOptions options,
+                             long debounceMillis) throws IOException {
+        this(sourceDir, targetDir, reportDir, options, debounceMillis, debounceMillis * 10);
+    }
+
+    public ComparisonWatcher(String sourceDir, String targetDir, String reportDir, ComparisonOptions options,
+                             long debounceMillis, long maxBatchMillis) throws IOException {
+        this.comparator = new FileComparator(sourceDir, targetDir, reportDir, options);
+        this.sourceRoot = Paths.get(sourceDir).toAbsolutePath().normalize();
+        this.targetRoot = Paths.get(targetDir).toAbsolutePath().normalize();
+        this.debounceMillis = debounceMillis;
+        this.maxBatchMillis = maxBatchMillis;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.watchedDirs = new HashMap<>();
+        this.results = new TreeMap<>();
+    }
+
+    // Registers both trees before the initial comparison so no edit made meanwhile is lost
+    public void start() throws IOException {
+        registerTree(sourceRoot);
+        registerTree(targetRoot);
+
+        // Each file gets its own limits here too, so fail-fast or a budget cannot leave the baseline incomplete
+        Map<String, ComparisonResult> initial = new TreeMap<>();
+        for (String relativePath : comparator.getAllRelativePaths()) {
+            ComparisonResult result = comparator.comparePath(relativePath);
+            if (result != null) {
+                initial.put(relativePath, result);
+            }
+        }
+        synchronized (this) {
+            results.putAll(initial);
+        }
+        writeReport();
+    }
+
+    // Blocks until close() is called, re-comparing each debounced batch of changed paths
+    public void run() throws IOException {
+        try {
+            while (true) {
+                Set<String> changed = new TreeSet<>();
+                collectEvents(watchService.take(), changed);
+
+                long batchDeadline = System.currentTimeMillis() + maxBatchMillis;
+                WatchKey key;
+                while ((key = pollBatch(batchDeadline)) != null) {
+                    collectEvents(key, changed);
+                }
+
+                if (rescanRequested) {
+                    rescanRequested = false;
+                    synchronized (this) {
+                        changed.addAll(results.keySet());
+                    }
+                    try {
+                        changed.addAll(listRelativePaths(sourceRoot));
+                        changed.addAll(listRelativePaths(targetRoot));
+                    } catch (IOException e) {
+                        // The trees are still changing, try again with the next batch
+                        rescanRequested = true;
+                    }
+                }
+                update(changed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // close() was called
+        }
+    }
+
+    // Null once the trees were quiet for the debounce period or the batch deadline passed;
+    // events arriving after the deadline stay queued for the next batch
+    private WatchKey pollBatch(long batchDeadline) throws InterruptedException {
+        long remaining = batchDeadline - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return null;
+        }
+        return watchService.poll(Math.min(debounceMillis, remaining), TimeUnit.MILLISECONDS);
+    }
+
+    private void collectEvents(WatchKey key, Set<String> changed) throws IOException {
+        Path dir = watchedDirs.get(key);
+
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW || dir == null) {
+                rescanRequested = true;
+                continue;
+            }
+
+            Path path = dir.resolve((Path) event.context());
+            String relativePath = relativize(path);
+
+            if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                // Files may have landed in a new directory before it was registered
+                try {
+                    registerTree(path);
+                    changed.addAll(listRelativePaths(path).stream()
+                            .map(child -> relativePath + "/" + child)
+                            .collect(Collectors.toList()));
+                } catch (IOException e) {
+                    // Removed again while we walked it, a rescan settles the final state
+                    rescanRequested = true;
+                }
+            } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE) {
+                // A deleted directory takes every known path below it along
+                changed.add(relativePath);
+                synchronized (this) {
+                    for (String known : results.keySet()) {
+                        if (known.startsWith(relativePath + "/")) {
+                            changed.add(known);
+                        }
+                    }
+                }
+            } else if (!Files.isDirectory(path)) {
+                changed.add(relativePath);
+            }
+        }
+
+        if (!key.reset()) {
+            watchedDirs.remove(key);
+        }
+    }
+
+    private void update(Set<String> changed) {
+        for (String relativePath : changed) {
+            ComparisonResult result = comparator.comparePath(relativePath);
+            synchronized (this) {
+                if (result == null) {
+                    results.remove(relativePath);
+                } else {
+                    results.put(relativePath, result);
+                }
+            }
+        }
+        try {
+            writeReport();
+        } catch (IOException e) {
+            // The results are still up to date, the next batch writes the report again
+            System.err.println("Could not write comparison report: " + e.getMessage());
+        }
+
+        synchronized (this) {
+            updateCount++;
+            notifyAll();
+        }
+    }
+
+    private void writeReport() throws IOException {
+        String summary;
+        synchronized (this) {
+            summary = FileComparator.buildSummary(results.values(), null);
+        }
+        Path reportDir = Files.createDirectories(Paths.get(comparator.getReportDir()));
+        Files.write(reportDir.resolve("comparison_summary.txt"), summary.getBytes());
+    }
+
+    private void registerTree(Path root) throws IOException {
+        for (Path dir : walk(root, Files::isDirectory)) {
+            WatchKey key = dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY,
+                    StandardWatchEventKinds.ENTRY_DELETE);
+            watchedDirs.put(key, dir);
+        }
+    }
+
+    private List<String> listRelativePaths(Path dir) throws IOException {
+        List<String> paths = new ArrayList<>();
+        if (!Files.isDirectory(dir)) {
+            return paths;
+        }
+        for (Path path : walk(dir, Files::isRegularFile)) {
+            paths.add(dir.relativize(path).toString().replace("\\", "/"));
+        }
+        return paths;
+    }
+
+    // Files.walk reports entries that vanish mid-walk as UncheckedIOException, callers expect IOException
+    private static List<Path> walk(Path root, Predicate<Path> filter) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.filter(filter).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private String relativize(Path path) {
+        Path root = path.startsWith(sourceRoot) ? sourceRoot : targetRoot;
+        return root.relativize(path).toString().replace("\\", "/");
+    }
+
+    // Waits until at least one batch of changes has been applied after the given update count
+    public synchronized boolean awaitUpdate(long lastSeen, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (updateCount <= lastSeen) {
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            wait(remaining);
+        }
+        return true;
+    }
+
+    public long getUpdateCount() {
+        return updateCount;
+    }
+
+    public synchronized ComparisonResult getResult(String relativePath) {
+        return results.get(relativePath);
+    }
+
+    public synchronized List<ComparisonResult> getResults() {
+        return new ArrayList<>(results.values());
+    }
+
+    @Override
+    public void close() throws IOException {
+        watchService.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ComparisonWatcher <sourceDir> <targetDir> [reportDir] [debounceMillis]"
+                    + " [maxBatchMillis]");
+            System.exit(1);
+        }
+        String reportDir = args.length > 2 ? args[2] : "reports";
+        long debounceMillis = args.length > 3 ? Long.parseLong(args[3]) : 500;
+        long maxBatchMillis = args.length > 4 ? Long.parseLong(args[4]) : debounceMillis * 10;
+
+        try (ComparisonWatcher watcher = new ComparisonWatcher(args[0], args[1], reportDir,
+                ComparisonOptions.fromSystemProperties(), debounceMillis, maxBatchMillis)) {
+            watcher.start();
+            System.out.println("Watching " + args[0] + " and " + args[1]
+                    + ", summary in " + reportDir + "/comparison_summary.txt");
+            watcher.run();
+        }
+    }
+}
@@ -12,6 +12,11 @@ import java.util.List;
 public class CsvComparator {
     
     public static ComparisonResult compare(File sourceFile, File targetFile, String fileName) {
+        return compare(sourceFile, targetFile, fileName, ComparisonControl.unlimited());
+    }
+    
+    public static ComparisonResult compare(File sourceFile, File targetFile, String fileName,
+                                           ComparisonControl control) {
         ComparisonResult result = new ComparisonResult(fileName, "CSV");
         
         try (CSVReader sourceReader = new CSVReaderBuilder(new FileReader(sourceFile)).build();
@@ -22,20 +27,24 @@ public class CsvComparator {
             
             // Compare row counts
             if (sourceData.size() != targetData.size()) {
-                result.setIdentical(false);
-                result.addDifference(String.format("Row count mismatch: source=%d, target=%d", 
-                    sourceData.size(), targetData.size()));
+                if (!control.addDifference(result, String.format("Row count mismatch: source=%d, target=%d",
+                        sourceData.size(), targetData.size()))) {
+                    return result;
+                }
             }
             
             // Compare data row by row
             int maxRows = Math.min(sourceData.size(), targetData.size());
             for (int i = 0; i < maxRows; i++) {
+                if (control.shouldStop(result)) {
+                    break;
+                }
+                
                 String[] sourceRow = sourceData.get(i);
                 String[] targetRow = targetData.get(i);
                 
                 if (!Arrays.equals(sourceRow, targetRow)) {
-                    result.setIdentical(false);
-                    result.addDifference(String.format("Row %d differs: source=%s, target=%s",
+                    control.addDifference(result, String.format("Row %d differs: source=%s, target=%s",
                         i + 1, Arrays.toString(sourceRow), Arrays.toString(targetRow)));
                 }
             }
@@ -11,6 +11,11 @@ import java.io.FileInputStream;
 public class ExcelComparator {
     
     public static ComparisonResult compare(File sourceFile, File targetFile, String fileName) {
+        return compare(sourceFile, targetFile, fileName, ComparisonControl.unlimited());
+    }
+    
+    public static ComparisonResult compare(File sourceFile, File targetFile, String fileName,
+                                           ComparisonControl control) {
         ComparisonResult result = new ComparisonResult(fileName, "xlsx");
         
         try (FileInputStream sourceFis = new FileInputStream(sourceFile);
@@ -20,18 +25,23 @@ public class ExcelComparator {
             
             // Compare sheet count
             if (sourceWorkbook.getNumberOfSheets() != targetWorkbook.getNumberOfSheets()) {
-                result.setIdentical(false);
-                result.addDifference(String.format("Sheet count mismatch: source=%d, target=%d",
-                    sourceWorkbook.getNumberOfSheets(), targetWorkbook.getNumberOfSheets()));
+                if (!control.addDifference(result, String.format("Sheet count mismatch: source=%d, target=%d",
+                        sourceWorkbook.getNumberOfSheets(), targetWorkbook.getNumberOfSheets()))) {
+                    return result;
+                }
             }
             
             // Compare each sheet
             for (int i = 0; i < Math.min(sourceWorkbook.getNumberOfSheets(), 
                     targetWorkbook.getNumberOfSheets()); i++) {
+                if (control.shouldStop(result)) {
+                    break;
+                }
+                
                 Sheet sourceSheet = sourceWorkbook.getSheetAt(i);
                 Sheet targetSheet = targetWorkbook.getSheetAt(i);
                 
-                compareSheets(sourceSheet, targetSheet, result);
+                compareSheets(sourceSheet, targetSheet, result, control);
             }
             
         } catch (Exception e) {
@@ -50,11 +60,14 @@ public class ExcelComparator {
         }
     }
     
-    private static void compareSheets(Sheet sourceSheet, Sheet targetSheet, ComparisonResult result) {
+    private static void compareSheets(Sheet sourceSheet, Sheet targetSheet, ComparisonResult result,
+                                      ComparisonControl control) {
         // Compare sheet names
         if (!sourceSheet.getSheetName().equals(targetSheet.getSheetName())) {
-            result.addDifference(String.format("Sheet name mismatch: source='%s', target='%s'",
-                sourceSheet.getSheetName(), targetSheet.getSheetName()));
+            if (!control.addDifference(result, String.format("Sheet name mismatch: source='%s', target='%s'",
+                    sourceSheet.getSheetName(), targetSheet.getSheetName()))) {
+                return;
+            }
         }
         
         // Compare row counts
@@ -62,18 +75,24 @@ public class ExcelComparator {
         int targetRows = targetSheet.getLastRowNum() + 1;
         
         if (sourceRows != targetRows) {
-            result.addDifference(String.format("Row count mismatch in sheet '%s': source=%d, target=%d",
-                sourceSheet.getSheetName(), sourceRows, targetRows));
+            if (!control.addDifference(result, String.format("Row count mismatch in sheet '%s': source=%d, target=%d",
+                    sourceSheet.getSheetName(), sourceRows, targetRows))) {
+                return;
+            }
         }
         
         // Compare cell values
         for (int rowNum = 0; rowNum < Math.min(sourceRows, targetRows); rowNum++) {
+            if (control.shouldStop(result)) {
+                return;
+            }
+            
             Row sourceRow = sourceSheet.getRow(rowNum);
             Row targetRow = targetSheet.getRow(rowNum);
             
             if (sourceRow == null && targetRow == null) continue;
             if (sourceRow == null || targetRow == null) {
-                result.addDifference(String.format("Row %d missing in one file", rowNum + 1));
+                control.addDifference(result, String.format("Row %d missing in one file", rowNum + 1));
                 continue;
             }
             
@@ -90,9 +109,12 @@ public class ExcelComparator {
                 String targetValue = getCellValue(targetCell);
                 
                 if (!sourceValue.equals(targetValue)) {
-                    result.addDifference(String.format(
+                    boolean proceed = control.addDifference(result, String.format(
                         "Cell [%s%d] differs: source='%s', target='%s'",
                         getColumnLetter(cellNum), rowNum + 1, sourceValue, targetValue));
+                    if (!proceed) {
+                        return;
+                    }
                 }
             }
         }
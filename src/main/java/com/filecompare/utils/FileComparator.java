@@ -1,5 +1,6 @@
 package com.filecompare.utils;
 
+import com.filecompare.model.ComparisonOptions;
 import com.filecompare.model.ComparisonResult;
 import java.io.File;
 import java.io.IOException;
@@ -7,6 +8,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -14,53 +16,121 @@ public class FileComparator {
     private final String sourceDir;
     private final String targetDir;
     private final String reportDir;
+    private final ComparisonOptions options;
     private final List<ComparisonResult> results;
+    private volatile ComparisonControl control;
+    private volatile boolean cancelled;
+    private volatile Consumer<ComparisonResult> resultListener;
     
     public FileComparator(String sourceDir, String targetDir, String reportDir) {
+        this(sourceDir, targetDir, reportDir, new ComparisonOptions());
+    }
+    
+    public FileComparator(String sourceDir, String targetDir, String reportDir, ComparisonOptions options) {
         this.sourceDir = sourceDir;
         this.targetDir = targetDir;
         this.reportDir = reportDir;
+        this.options = options;
         this.results = new ArrayList<>();
+        this.control = new ComparisonControl(options);
         
         // Create report directory
         new File(reportDir).mkdirs();
     }
     
     public List<ComparisonResult> compareAllFiles() throws IOException {
+        // Each run gets its own difference budget, but starts cancelled once cancel() was called
+        ComparisonControl runControl = new ComparisonControl(options);
+        this.control = runControl;
+        if (cancelled) {
+            runControl.cancel();
+        }
+        
+        // Walking large trees takes a while, so look for a cancel() after each walk
         Map<String, File> sourceFiles = getFilesMap(sourceDir);
+        if (runControl.isCancelled()) {
+            return results;
+        }
         Map<String, File> targetFiles = getFilesMap(targetDir);
         
         // Compare files present in both directories
         for (Map.Entry<String, File> entry : sourceFiles.entrySet()) {
+            if (runControl.isCancelled()) {
+                return results;
+            }
+            
             String relativePath = entry.getKey();
             File sourceFile = entry.getValue();
             File targetFile = targetFiles.get(relativePath);
             
             if (targetFile != null) {
-                ComparisonResult result = compareFiles(sourceFile, targetFile, relativePath);
-                results.add(result);
+                ComparisonResult result = compareFiles(sourceFile, targetFile, relativePath, runControl);
+                addResult(result);
             } else {
                 ComparisonResult result = new ComparisonResult(relativePath, getFileType(sourceFile));
-                result.setIdentical(false);
                 result.addDifference("File missing in target directory");
-                results.add(result);
+                runControl.recordDifference();
+                addResult(result);
             }
         }
         
         // Check for files only in target
         for (Map.Entry<String, File> entry : targetFiles.entrySet()) {
+            if (runControl.isCancelled()) {
+                return results;
+            }
+            
             String relativePath = entry.getKey();
             if (!sourceFiles.containsKey(relativePath)) {
                 ComparisonResult result = new ComparisonResult(relativePath, getFileType(entry.getValue()));
-                result.setIdentical(false);
                 result.addDifference("File missing in source directory");
-                results.add(result);
+                runControl.recordDifference();
+                addResult(result);
             }
         }
         
         return results;
     }
     
+    private void addResult(ComparisonResult result) {
+        results.add(result);
+        Consumer<ComparisonResult> listener = resultListener;
+        if (listener != null) {
+            listener.accept(result);
+        }
+    }
+    
+    // Union of the relative paths found in the source and target directories
+    public Set<String> getAllRelativePaths() throws IOException {
+        Set<String> paths = new TreeSet<>(getFilesMap(sourceDir).keySet());
+        paths.addAll(getFilesMap(targetDir).keySet());
+        return paths;
+    }
+    
+    // Compares a single relative path on its own, e.g. after it changed on disk; null if it exists on neither side
+    public ComparisonResult comparePath(String relativePath) {
+        return comparePath(relativePath, new ComparisonControl(options));
+    }
+    
+    public ComparisonResult comparePath(String relativePath, ComparisonControl control) {
+        File sourceFile = new File(sourceDir, relativePath);
+        File targetFile = new File(targetDir, relativePath);
+        boolean inSource = sourceFile.isFile();
+        boolean inTarget = targetFile.isFile();
+        
+        if (inSource && inTarget) {
+            return compareFiles(sourceFile, targetFile, relativePath, control);
+        }
+        if (!inSource && !inTarget) {
+            return null;
+        }
+        
+        ComparisonResult result = new ComparisonResult(relativePath, getFileType(inSource ? sourceFile : targetFile));
+        result.addDifference(inSource ? "File missing in target directory" : "File missing in source directory");
+        control.recordDifference();
+        return result;
+    }
+    
     private Map<String, File> getFilesMap(String directory) throws IOException {
         Path basePath = Paths.get(directory);
         
@@ -74,7 +144,8 @@ public class FileComparator {
         }
     }
     
-    private ComparisonResult compareFiles(File sourceFile, File targetFile, String relativePath) {
+    private ComparisonResult compareFiles(File sourceFile, File targetFile, String relativePath,
+                                          ComparisonControl control) {
         String fileType = getFileType(sourceFile);
         ComparisonResult result = new ComparisonResult(relativePath, fileType);
 
@@ -82,15 +153,15 @@ public class FileComparator {
         try {
             switch (fileType.toUpperCase()) {
                 case "XML":
-                    return XmlComparator.compare(sourceFile, targetFile, relativePath);
+                    return XmlComparator.compare(sourceFile, targetFile, relativePath, control);
                 case "CSV":
-                    return CsvComparator.compare(sourceFile, targetFile, relativePath);
+                    return CsvComparator.compare(sourceFile, targetFile, relativePath, control);
                 case "XLSX":
                 case "XLS":
-                    return ExcelComparator.compare(sourceFile, targetFile, relativePath);
+                    return ExcelComparator.compare(sourceFile, targetFile, relativePath, control);
                 case "TXT":
                 default:
-                    return TextComparator.compare(sourceFile, targetFile, relativePath);
+                    return TextComparator.compare(sourceFile, targetFile, relativePath, control);
             }
         } catch (Exception e) {
             result.setIdentical(false);
@@ -109,6 +180,16 @@ public class FileComparator {
     }
     
     public void generateReport() throws IOException {
+        // Write summary to file
+        Path summaryPath = Paths.get(reportDir, "comparison_summary.txt");
+        Files.write(summaryPath, buildSummary().getBytes());
+    }
+    
+    public String buildSummary() {
+        return buildSummary(results, control.getStopReason());
+    }
+    
+    public static String buildSummary(Collection<ComparisonResult> results, String stopReason) {
         // Generate summary report
         StringBuilder summary = new StringBuilder();
         summary.append("File Comparison Summary\n");
@@ -117,7 +198,11 @@ public class FileComparator {
         
         long identicalCount = results.stream().filter(ComparisonResult::isIdentical).count();
         summary.append("Identical files: ").append(identicalCount).append("\n");
-        summary.append("Files with differences: ").append(results.size() - identicalCount).append("\n\n");
+        summary.append("Files with differences: ").append(results.size() - identicalCount).append("\n");
+        if (stopReason != null) {
+            summary.append("Comparison stopped early: ").append(stopReason).append("\n");
+        }
+        summary.append("\n");
         
         summary.append("Detailed Results:\n");
         summary.append("-----------------\n");
@@ -126,6 +211,9 @@ public class FileComparator {
             summary.append("\nFile: ").append(result.getFileName()).append("\n");
             summary.append("Type: ").append(result.getFileType()).append("\n");
             summary.append("Status: ").append(result.isIdentical() ? "IDENTICAL" : "DIFFERENT").append("\n");
+            if (result.isTruncated()) {
+                summary.append("Note: comparison of this file stopped early\n");
+            }
             
             if (!result.isIdentical()) {
                 summary.append("Differences: ").append(result.getDifferenceCount()).append("\n");
@@ -135,12 +223,42 @@ public class FileComparator {
             }
         }
         
-        // Write summary to file
-        Path summaryPath = Paths.get(reportDir, "comparison_summary.txt");
-        Files.write(summaryPath, summary.toString().getBytes());
+        return summary.toString();
+    }
+    
+    public String getSourceDir() {
+        return sourceDir;
+    }
+    
+    public String getTargetDir() {
+        return targetDir;
+    }
+    
+    public String getReportDir() {
+        return reportDir;
     }
     
     public List<ComparisonResult> getResults() {
         return results;
     }
+    
+    // Receives each file's result as soon as it is compared, on the comparing thread
+    public void setResultListener(Consumer<ComparisonResult> resultListener) {
+        this.resultListener = resultListener;
+    }
+    
+    // Cooperative cancellation: comparators notice it at their next row, line or cell.
+    // It is sticky, a cancel() before or between runs also stops the next run.
+    public void cancel() {
+        cancelled = true;
+        control.cancel();
+    }
+    
+    public boolean isCancelled() {
+        return cancelled || control.isCancelled();
+    }
+    
+    public ComparisonOptions getOptions() {
+        return options;
+    }
 }
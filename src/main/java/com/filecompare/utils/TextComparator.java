@@ -10,6 +10,11 @@ import java.util.List;
 public class TextComparator {
     
     public static ComparisonResult compare(File sourceFile, File targetFile, String fileName) {
+        return compare(sourceFile, targetFile, fileName, ComparisonControl.unlimited());
+    }
+    
+    public static ComparisonResult compare(File sourceFile, File targetFile, String fileName,
+                                           ComparisonControl control) {
         ComparisonResult result = new ComparisonResult(fileName, "txt");
         
         try {
@@ -18,17 +23,21 @@ public class TextComparator {
             
             // Compare line counts
             if (sourceLines.size() != targetLines.size()) {
-                result.setIdentical(false);
-                result.addDifference(String.format("Line count mismatch: source=%d, target=%d",
-                    sourceLines.size(), targetLines.size()));
+                if (!control.addDifference(result, String.format("Line count mismatch: source=%d, target=%d",
+                        sourceLines.size(), targetLines.size()))) {
+                    return result;
+                }
             }
             
             // Compare line by line
             int maxLines = Math.min(sourceLines.size(), targetLines.size());
             for (int i = 0; i < maxLines; i++) {
+                if (control.shouldStop(result)) {
+                    break;
+                }
+                
                 if (!sourceLines.get(i).equals(targetLines.get(i))) {
-                    result.setIdentical(false);
-                    result.addDifference(String.format("Line %d differs:\n  Source: %s\n  Target: %s",
+                    control.addDifference(result, String.format("Line %d differs:\n  Source: %s\n  Target: %s",
                         i + 1, sourceLines.get(i), targetLines.get(i)));
                 }
             }
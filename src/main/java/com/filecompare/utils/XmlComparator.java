@@ -3,28 +3,32 @@ package com.filecompare.utils;
 import com.filecompare.model.ComparisonResult;
 import org.xmlunit.builder.DiffBuilder;
 import org.xmlunit.diff.Diff;
-import org.xmlunit.diff.Difference;
 
 import java.io.File;
 
 public class XmlComparator {
     
     public static ComparisonResult compare(File sourceFile, File targetFile, String fileName) {
+        return compare(sourceFile, targetFile, fileName, ComparisonControl.unlimited());
+    }
+    
+    public static ComparisonResult compare(File sourceFile, File targetFile, String fileName,
+                                           ComparisonControl control) {
         ComparisonResult result = new ComparisonResult(fileName, "XML");
         
         try {
+            // Differences are recorded as XMLUnit reports them so the engine can stop early
             Diff diff = DiffBuilder.compare(sourceFile)
                     .withTest(targetFile)
                     .ignoreWhitespace()
                     .ignoreComments()
                     .checkForIdentical()
+                    .withComparisonController(
+                        difference -> !control.addDifference(result, difference.toString()))
                     .build();
             
             if (diff.hasDifferences()) {
                 result.setIdentical(false);
-                for (Difference difference : diff.getDifferences()) {
-                    result.addDifference(difference.toString());
-                }
             }
             
         } catch (Exception e) {
@@ -7,6 +7,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.function.Predicate;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import org.apache.commons.io.FileUtils;
@@ -14,6 +15,11 @@ import org.apache.commons.io.FileUtils;
 public class ZipExtractor {
     
     public static void extractZip(String zipFilePath, String destDir) throws IOException {
+        extractZip(zipFilePath, destDir, entryName -> true);
+    }
+    
+    // Only file entries accepted by the filter are written, e.g. the entries of one shard
+    public static void extractZip(String zipFilePath, String destDir, Predicate<String> entryFilter) throws IOException {
         File destDirectory = new File(destDir);
         
         // Clean and create destination directory
@@ -34,7 +40,7 @@ public class ZipExtractor {
                     if (!newFile.isDirectory() && !newFile.mkdirs()) {
                         throw new IOException("Failed to create directory " + newFile);
                     }
-                } else {
+                } else if (entryFilter.test(relativeName(zipEntry))) {
                     // Create parent directories if needed
                     File parent = newFile.getParentFile();
                     if (!parent.isDirectory() && !parent.mkdirs()) {
@@ -55,6 +61,30 @@ public class ZipExtractor {
         }
     }
     
+    // Archives are extracted into extractDir, directories are compared in place; returns the tree to compare
+    public static String extractIfArchive(String path, String extractDir) throws IOException {
+        return extractIfArchive(path, extractDir, entryName -> true);
+    }
+    
+    public static String extractIfArchive(String path, String extractDir, Predicate<String> entryFilter)
+            throws IOException {
+        File file = new File(path);
+        if (file.isDirectory()) {
+            return file.getPath();
+        }
+        if (!file.isFile()) {
+            throw new IOException("Source or target does not exist: " + path);
+        }
+        
+        extractZip(file.getPath(), extractDir, entryFilter);
+        return extractDir;
+    }
+    
+    // Entry name as the relative path it ends up at, e.g. "./a/b.txt" becomes "a/b.txt"
+    private static String relativeName(ZipEntry zipEntry) {
+        return Paths.get(zipEntry.getName()).normalize().toString().replace("\\", "/");
+    }
+    
     private static File newFile(File destinationDir, ZipEntry zipEntry) throws IOException {
         File destFile = new File(destinationDir, zipEntry.getName());
         
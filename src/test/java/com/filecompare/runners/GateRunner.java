@@ -0,0 +1,24 @@
+package com.filecompare.runners;
+
+import io.cucumber.junit.Cucumber;
+import io.cucumber.junit.CucumberOptions;
+import org.junit.runner.RunWith;
+
+/*
+ * Fails the build when two snapshots differ. Not part of the default test run:
+ *
+ *   mvn test -Dtest=GateRunner -Dgate.source=preshot.zip -Dgate.target=postshot.zip -Dcompare.failFast=true
+ */
+@RunWith(Cucumber.class)
+@CucumberOptions(
+        features = "src/test/resources/features",
+        glue = "com.filecompare.stepdefs",
+        tags = "@gate",
+        plugin = {
+                "pretty",
+                "junit:target/cucumber-reports/Gate.xml"
+        },
+        monochrome = true
+)
+public class GateRunner {
+}
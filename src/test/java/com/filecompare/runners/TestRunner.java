@@ -8,6 +8,7 @@ import org.junit.runner.RunWith;
 @CucumberOptions(
         features = "src/test/resources/features",
         glue = "com.filecompare.stepdefs",
+        tags = "not @gate",
         plugin = {
                 "pretty",
                 "html:target/cucumber-reports/html-report.html",
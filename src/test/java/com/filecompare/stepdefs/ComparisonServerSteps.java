@@ -0,0 +1,252 @@
+package com.filecompare.stepdefs;
+
+import com.filecompare.server.ComparisonServer;
+import io.cucumber.java.After;
+import io.cucumber.java.en.And;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.junit.Assert;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ComparisonServerSteps {
+    
+    private ComparisonServer server;
+    private int responseStatus;
+    private String responseBody;
+    private Map<String, String> responseHeaders;
+    private String jobId;
+    private String generatedSource;
+    private String generatedTarget;
+    private int generatedFiles;
+    
+    @Given("a comparison server is running")
+    public void a_comparison_server_is_running() throws Exception {
+        server = new ComparisonServer(0, 1, 10, "temp/server");
+        server.start();
+    }
+    
+    @Given("a comparison server is running with {int} worker(s) and a queue of {int}")
+    public void a_comparison_server_is_running_with_workers_and_a_queue_of(int workers, int queue) throws Exception {
+        server = new ComparisonServer(0, workers, queue, "temp/server");
+        server.start();
+    }
+    
+    // Large enough that a job is still extracting or comparing when the next request arrives
+    @And("two generated archives with {int} differing text files")
+    public void two_generated_archives_with_differing_text_files(int files) throws Exception {
+        generatedFiles = files;
+        generatedSource = "temp/server-data/source.zip";
+        generatedTarget = "temp/server-data/target.zip";
+        writeArchive(generatedSource, files, "source");
+        writeArchive(generatedTarget, files, "target");
+    }
+    
+    @When("I submit a job comparing the generated archives")
+    public void i_submit_a_job_comparing_the_generated_archives() throws Exception {
+        i_submit_a_job_comparing_with(generatedSource, generatedTarget);
+    }
+    
+    @And("I submit another job comparing the generated archives")
+    public void i_submit_another_job_comparing_the_generated_archives() throws Exception {
+        request("POST", "/jobs", "source=" + encode(generatedSource) + "&target=" + encode(generatedTarget));
+    }
+    
+    @And("I cancel the job once it is running")
+    public void i_cancel_the_job_once_it_is_running() throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        do {
+            request("GET", "/jobs/" + jobId, null);
+        } while (responseBody.contains("\"status\":\"QUEUED\"") && System.currentTimeMillis() < deadline);
+        Assert.assertTrue("Job should be running: " + responseBody, responseBody.contains("\"status\":\"RUNNING\""));
+        
+        request("DELETE", "/jobs/" + jobId, null);
+        Assert.assertEquals(202, responseStatus);
+    }
+    
+    @And("the job results should be empty or truncated")
+    public void the_job_results_should_be_empty_or_truncated() throws Exception {
+        request("GET", "/jobs/" + jobId + "/results", null);
+        Assert.assertEquals(200, responseStatus);
+        int listed = responseBody.split("\"fileName\":", -1).length - 1;
+        Assert.assertTrue("Cancelled job should not list a complete comparison",
+            listed < generatedFiles || responseBody.contains("\"truncated\":true"));
+    }
+    
+    @Then("reading the job results page by page should list every generated file once")
+    public void reading_the_job_results_page_by_page_should_list_every_generated_file_once() throws Exception {
+        List<String> fileNames = new ArrayList<>();
+        int offset = 0;
+        long deadline = System.currentTimeMillis() + 60000;
+        String status;
+        do {
+            request("GET", "/jobs/" + jobId + "/results?offset=" + offset, null);
+            Assert.assertEquals(200, responseStatus);
+            status = responseHeaders.get("X-Job-Status");
+            offset = Integer.parseInt(responseHeaders.get("X-Next-Offset"));
+            
+            Matcher matcher = Pattern.compile("\"fileName\":\"([^\"]+)\"").matcher(responseBody);
+            while (matcher.find()) {
+                fileNames.add(matcher.group(1));
+            }
+        } while (("QUEUED".equals(status) || "RUNNING".equals(status)) && System.currentTimeMillis() < deadline);
+        
+        Assert.assertEquals("Job should have completed", "COMPLETED", status);
+        Assert.assertEquals("Every page should continue where the last one ended", fileNames.size(), offset);
+        Assert.assertEquals("Every file should be listed", generatedFiles, fileNames.size());
+        Assert.assertEquals("No file should be listed twice", generatedFiles, new HashSet<>(fileNames).size());
+    }
+    
+    @When("I submit a job comparing {string} with {string}")
+    public void i_submit_a_job_comparing_with(String source, String target) throws Exception {
+        request("POST", "/jobs", "source=" + encode(source) + "&target=" + encode(target));
+        Assert.assertEquals("Job should be accepted: " + responseBody, 202, responseStatus);
+        
+        Matcher matcher = Pattern.compile("\"id\":\"([^\"]+)\"").matcher(responseBody);
+        Assert.assertTrue("Response should contain a job id", matcher.find());
+        jobId = matcher.group(1);
+    }
+    
+    @When("I try to submit a job comparing {string} with {string}")
+    public void i_try_to_submit_a_job_comparing_with(String source, String target) throws Exception {
+        request("POST", "/jobs", "source=" + encode(source) + "&target=" + encode(target));
+    }
+    
+    @When("I submit a job with only the source {string}")
+    public void i_submit_a_job_with_only_the_source(String source) throws Exception {
+        request("POST", "/jobs", "source=" + encode(source));
+    }
+    
+    @Then("the job should finish with status {string}")
+    public void the_job_should_finish_with_status(String status) throws Exception {
+        request("GET", "/jobs/" + jobId + "?wait=60", null);
+        Assert.assertEquals(200, responseStatus);
+        Assert.assertTrue("Unexpected job state: " + responseBody,
+            responseBody.contains("\"status\":\"" + status + "\""));
+    }
+    
+    @And("the job report should contain {string}")
+    public void the_job_report_should_contain(String text) throws Exception {
+        request("GET", "/jobs/" + jobId + "/report", null);
+        Assert.assertEquals(200, responseStatus);
+        Assert.assertTrue("Report should contain " + text, responseBody.contains(text));
+    }
+    
+    @And("the job results should list every compared file")
+    public void the_job_results_should_list_every_compared_file() throws Exception {
+        request("GET", "/jobs/" + jobId, null);
+        Matcher matcher = Pattern.compile("\"filesCompared\":(\\d+)").matcher(responseBody);
+        Assert.assertTrue("Job should report the number of compared files", matcher.find());
+        int filesCompared = Integer.parseInt(matcher.group(1));
+        
+        request("GET", "/jobs/" + jobId + "/results", null);
+        Assert.assertEquals(200, responseStatus);
+        int listed = responseBody.split("\"fileName\":", -1).length - 1;
+        Assert.assertTrue("Should have comparison results", filesCompared > 0);
+        Assert.assertEquals("Every compared file should be listed", filesCompared, listed);
+    }
+    
+    @When("I send a request for host {string}")
+    public void i_send_a_request_for_host(String host) throws Exception {
+        // HttpURLConnection does not allow setting the Host header, so write the request by hand
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            OutputStream os = socket.getOutputStream();
+            os.write(("GET /jobs/1 HTTP/1.1\r\nHost: " + host + "\r\nConnection: close\r\n\r\n")
+                    .getBytes(StandardCharsets.US_ASCII));
+            os.flush();
+            
+            String statusLine = new BufferedReader(new InputStreamReader(socket.getInputStream(),
+                    StandardCharsets.US_ASCII)).readLine();
+            responseStatus = Integer.parseInt(statusLine.split(" ")[1]);
+        }
+    }
+    
+    @Given("a job directory left behind by an earlier server")
+    public void a_job_directory_left_behind_by_an_earlier_server() throws Exception {
+        File staleReport = new File("temp/server/job-1/reports/comparison_summary.txt");
+        staleReport.getParentFile().mkdirs();
+        Files.write(staleReport.toPath(), "stale\n".getBytes(StandardCharsets.UTF_8));
+    }
+    
+    @Then("the stale job directory should have been removed")
+    public void the_stale_job_directory_should_have_been_removed() {
+        Assert.assertFalse("Stale job directory should be removed on startup",
+            new File("temp/server/job-1/reports/comparison_summary.txt").exists());
+    }
+    
+    @Then("the server should answer with status {int}")
+    public void the_server_should_answer_with_status(int status) {
+        Assert.assertEquals(status, responseStatus);
+    }
+    
+    @After
+    public void stopServer() {
+        if (server != null) {
+            server.stop();
+        }
+    }
+    
+    private void request(String method, String path, String body) throws IOException {
+        URL url = new URL("http://localhost:" + server.getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        connection.setRequestMethod(method);
+        
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+            try (OutputStream os = connection.getOutputStream()) {
+                os.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        
+        responseStatus = connection.getResponseCode();
+        responseHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        connection.getHeaderFields().forEach((name, values) -> {
+            if (name != null) {
+                responseHeaders.put(name, values.get(0));
+            }
+        });
+        InputStream stream = responseStatus >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        responseBody = stream == null ? "" : new String(stream.readAllBytes(), StandardCharsets.UTF_8);
+        connection.disconnect();
+    }
+    
+    private static void writeArchive(String path, int files, String content) throws IOException {
+        File archive = new File(path);
+        archive.getParentFile().mkdirs();
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(archive))) {
+            for (int i = 0; i < files; i++) {
+                zos.putNextEntry(new ZipEntry("file-" + i + ".txt"));
+                zos.write((content + " " + i + "\n").getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+    }
+    
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
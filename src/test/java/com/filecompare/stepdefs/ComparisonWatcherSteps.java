@@ -0,0 +1,235 @@
+package com.filecompare.stepdefs;
+
+import com.filecompare.model.ComparisonOptions;
+import com.filecompare.model.ComparisonResult;
+import com.filecompare.utils.ComparisonWatcher;
+import com.filecompare.utils.ZipExtractor;
+import io.cucumber.java.After;
+import io.cucumber.java.en.And;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+public class ComparisonWatcherSteps {
+    
+    private String sourceExtractDir = "temp/watch/source";
+    private String targetExtractDir = "temp/watch/target";
+    private String reportDir = "temp/watch/reports";
+    private ComparisonWatcher watcher;
+    private Thread watcherThread;
+    private String changedFile;
+    private List<String> changedFiles;
+    private long lastUpdate;
+    private Thread writerThread;
+    private volatile boolean writing;
+    
+    @Given("both {string} and {string} are extracted for watching")
+    public void both_are_extracted_for_watching(String sourceZip, String targetZip) throws Exception {
+        ZipExtractor.extractZip(sourceZip, sourceExtractDir);
+        ZipExtractor.extractZip(targetZip, targetExtractDir);
+    }
+    
+    @And("a comparison watcher is running")
+    public void a_comparison_watcher_is_running() throws Exception {
+        watcher = new ComparisonWatcher(sourceExtractDir, targetExtractDir, reportDir, new ComparisonOptions(), 200);
+        watcher.start();
+        
+        watcherThread = new Thread(() -> {
+            try {
+                watcher.run();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+        watcherThread.start();
+    }
+    
+    @When("I replace a differing target file with its source version")
+    public void i_replace_a_differing_target_file_with_its_source_version() throws Exception {
+        changedFile = watcher.getResults().stream()
+                .filter(result -> !result.isIdentical())
+                .map(ComparisonResult::getFileName)
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("Archives should contain a differing file"));
+        
+        lastUpdate = watcher.getUpdateCount();
+        Files.copy(new File(sourceExtractDir, changedFile).toPath(), new File(targetExtractDir, changedFile).toPath(),
+            StandardCopyOption.REPLACE_EXISTING);
+    }
+    
+    @When("I delete that file from the target tree")
+    public void i_delete_that_file_from_the_target_tree() throws Exception {
+        changedFile = watcher.getResults().get(0).getFileName();
+        
+        lastUpdate = watcher.getUpdateCount();
+        Files.delete(new File(targetExtractDir, changedFile).toPath());
+    }
+    
+    @When("I create a new file in the source tree only")
+    public void i_create_a_new_file_in_the_source_tree_only() throws Exception {
+        changedFile = "added.txt";
+        lastUpdate = watcher.getUpdateCount();
+        Files.write(new File(sourceExtractDir, changedFile).toPath(), "only in source\n".getBytes());
+    }
+    
+    // Built next to the tree and moved in, so its files exist before the watcher can register the directory
+    @When("I move a directory with {int} files into the {word} tree")
+    public void i_move_a_directory_with_files_into_the_tree(int files, String side) throws Exception {
+        File staging = new File("temp/watch/staging/added-dir");
+        FileUtils.deleteDirectory(staging);
+        changedFiles = writeDirectory(staging, files);
+        
+        lastUpdate = watcher.getUpdateCount();
+        Files.move(staging.toPath(), new File(treeDir(side), "added-dir").toPath());
+    }
+    
+    @Given("a directory with {int} files in both trees")
+    public void a_directory_with_files_in_both_trees(int files) throws Exception {
+        lastUpdate = watcher.getUpdateCount();
+        changedFiles = writeDirectory(new File(sourceExtractDir, "shared-dir"), files);
+        writeDirectory(new File(targetExtractDir, "shared-dir"), files);
+        
+        List<String> notIdentical = awaitResults(result -> result != null && result.isIdentical());
+        Assert.assertTrue("Files of the new directory should be compared: " + notIdentical, notIdentical.isEmpty());
+    }
+    
+    @When("I remove that directory from the {word} tree")
+    public void i_remove_that_directory_from_the_tree(String side) throws Exception {
+        lastUpdate = watcher.getUpdateCount();
+        FileUtils.deleteDirectory(new File(treeDir(side), "shared-dir"));
+    }
+    
+    @Then("the watcher should report every file in that directory as missing in {word}")
+    public void the_watcher_should_report_every_file_in_that_directory_as_missing_in(String side) throws Exception {
+        String difference = "File missing in " + side + " directory";
+        List<String> notReported = awaitResults(
+            result -> result != null && result.getDifferences().contains(difference));
+        Assert.assertTrue("Files should be reported as missing in " + side + ": " + notReported, notReported.isEmpty());
+    }
+    
+    @When("a new target file is written to continuously")
+    public void a_new_target_file_is_written_to_continuously() throws Exception {
+        File growing = new File(targetExtractDir, "growing.log");
+        lastUpdate = watcher.getUpdateCount();
+        
+        // Appends faster than the 200 ms debounce period, so the trees never go quiet
+        writing = true;
+        writerThread = new Thread(() -> {
+            try {
+                while (writing) {
+                    Files.write(growing.toPath(), "line\n".getBytes(), StandardOpenOption.CREATE,
+                        StandardOpenOption.APPEND);
+                    Thread.sleep(50);
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        });
+        writerThread.start();
+    }
+    
+    @Then("the watcher should still apply a batch of changes")
+    public void the_watcher_should_still_apply_a_batch_of_changes() throws Exception {
+        Assert.assertTrue("A batch should be applied despite the continuous writes",
+            watcher.awaitUpdate(lastUpdate, 10000));
+        Assert.assertNotNull("The written file should be compared", watcher.getResult("growing.log"));
+    }
+    
+    @When("the report directory is removed")
+    public void the_report_directory_is_removed() throws Exception {
+        FileUtils.deleteDirectory(new File(reportDir));
+    }
+    
+    @And("the summary report should be written again")
+    public void the_summary_report_should_be_written_again() {
+        Assert.assertTrue("Summary report should be written again",
+            new File(reportDir, "comparison_summary.txt").exists());
+    }
+    
+    @Then("the watcher should report that file as identical")
+    public void the_watcher_should_report_that_file_as_identical() throws Exception {
+        ComparisonResult result = awaitResult(ComparisonResult::isIdentical);
+        Assert.assertTrue("Edited file should now be identical: " + result, result != null && result.isIdentical());
+    }
+    
+    @Then("the watcher should report that file as missing in target")
+    public void the_watcher_should_report_that_file_as_missing_in_target() throws Exception {
+        Predicate<ComparisonResult> missing = r -> r.getDifferences().contains("File missing in target directory");
+        ComparisonResult result = awaitResult(missing);
+        Assert.assertTrue("Deleted file should be reported as missing: " + result, result != null && missing.test(result));
+        
+        String summary = new String(Files.readAllBytes(new File(reportDir, "comparison_summary.txt").toPath()));
+        Assert.assertTrue("Summary report should list the deleted file", summary.contains("File: " + changedFile));
+    }
+    
+    @After
+    public void stopWatcher() throws Exception {
+        if (writerThread != null) {
+            writing = false;
+            writerThread.join(5000);
+        }
+        if (watcher != null) {
+            watcher.close();
+            watcherThread.join(5000);
+        }
+    }
+    
+    private String treeDir(String side) {
+        return "source".equals(side) ? sourceExtractDir : targetExtractDir;
+    }
+    
+    private static List<String> writeDirectory(File dir, int files) throws Exception {
+        List<String> relativePaths = new ArrayList<>();
+        for (int i = 0; i < files; i++) {
+            // Every other file sits one level deeper, so nested directories are covered too
+            String name = i % 2 == 0 ? "file-" + i + ".txt" : "nested/file-" + i + ".txt";
+            File file = new File(dir, name);
+            file.getParentFile().mkdirs();
+            Files.write(file.toPath(), ("content " + i + "\n").getBytes());
+            relativePaths.add(dir.getName() + "/" + name);
+        }
+        return relativePaths;
+    }
+    
+    // Waits until every changed file matches, returning the ones that never did
+    private List<String> awaitResults(Predicate<ComparisonResult> expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        List<String> pending = new ArrayList<>(changedFiles);
+        while (System.currentTimeMillis() < deadline) {
+            pending.removeIf(path -> expected.test(watcher.getResult(path)));
+            if (pending.isEmpty()) {
+                break;
+            }
+            if (watcher.awaitUpdate(lastUpdate, 1000)) {
+                lastUpdate = watcher.getUpdateCount();
+            }
+        }
+        return pending;
+    }
+    
+    // A write may be seen in more than one batch, so keep waiting until the expected state shows up
+    private ComparisonResult awaitResult(Predicate<ComparisonResult> expected) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        ComparisonResult result = watcher.getResult(changedFile);
+        while (System.currentTimeMillis() < deadline) {
+            if (watcher.awaitUpdate(lastUpdate, 1000)) {
+                lastUpdate = watcher.getUpdateCount();
+                result = watcher.getResult(changedFile);
+                if (result != null && expected.test(result)) {
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -1,5 +1,6 @@
 package com.filecompare.stepdefs;
 
+import com.filecompare.model.ComparisonOptions;
 import com.filecompare.model.ComparisonResult;
 import com.filecompare.utils.FileComparator;
 import com.filecompare.utils.ZipExtractor;
@@ -10,9 +11,14 @@ import io.cucumber.java.en.And;
 import org.junit.Assert;
 
 import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class FileComparisonSteps {
     
@@ -131,6 +137,126 @@ public class FileComparisonSteps {
         Assert.assertTrue("Should have comparison details", results.size() > 0);
     }
     
+    @When("I compare all files with fail-fast enabled")
+    public void i_compare_all_files_with_fail_fast_enabled() throws Exception {
+        ComparisonOptions options = new ComparisonOptions();
+        options.setFailFast(true);
+        compareWithOptions(options);
+    }
+    
+    @When("I compare all files with a difference budget of {int}")
+    public void i_compare_all_files_with_a_difference_budget_of(int maxDifferences) throws Exception {
+        ComparisonOptions options = new ComparisonOptions();
+        options.setMaxDifferences(maxDifferences);
+        compareWithOptions(options);
+    }
+    
+    @When("I compare all files in identity-only mode")
+    public void i_compare_all_files_in_identity_only_mode() throws Exception {
+        ComparisonOptions options = new ComparisonOptions();
+        options.setIdentityOnly(true);
+        compareWithOptions(options);
+    }
+    
+    @Then("the comparison should stop at the first differing file")
+    public void the_comparison_should_stop_at_the_first_differing_file() {
+        Assert.assertTrue("Comparison should have stopped early", comparator.isCancelled());
+        Assert.assertTrue("Should have comparison results", results.size() > 0);
+        
+        // Identical files may come first, the differing file that stopped the run must be last
+        for (int i = 0; i < results.size() - 1; i++) {
+            Assert.assertTrue("Only the last result should differ", results.get(i).isIdentical());
+        }
+        Assert.assertFalse("Last result should differ", results.get(results.size() - 1).isIdentical());
+    }
+    
+    @Then("the comparison should record {int} differences in total")
+    public void the_comparison_should_record_differences_in_total(int expectedDifferences) {
+        int totalDifferences = results.stream().mapToInt(ComparisonResult::getDifferenceCount).sum();
+        Assert.assertTrue("Comparison should have stopped early", comparator.isCancelled());
+        Assert.assertEquals("Unexpected number of recorded differences", expectedDifferences, totalDifferences);
+    }
+    
+    @And("the summary should say the comparison stopped early: {string}")
+    public void the_summary_should_say_the_comparison_stopped_early(String reason) {
+        String summary = comparator.buildSummary();
+        Assert.assertTrue("Summary should give the stop reason: " + summary,
+            summary.contains("Comparison stopped early: " + reason + "\n"));
+    }
+    
+    // The shipped fixtures differ in a single place per file, which identity-only mode cannot shorten
+    @Given("generated source and target archives whose files differ in {int} lines each")
+    public void generated_source_and_target_archives_whose_files_differ_in_lines_each(int lines) throws Exception {
+        sourceZipPath = "temp/generated/identity-source.zip";
+        targetZipPath = "temp/generated/identity-target.zip";
+        sourceExtractDir = "temp/generated/source";
+        targetExtractDir = "temp/generated/target";
+        writeArchive(sourceZipPath, lines, "source");
+        writeArchive(targetZipPath, lines, "target");
+    }
+    
+    @When("I compare all files without limits")
+    public void i_compare_all_files_without_limits() throws Exception {
+        compareWithOptions(new ComparisonOptions());
+    }
+    
+    @Then("each differing file should stop after its first difference")
+    public void each_differing_file_should_stop_after_its_first_difference() {
+        Assert.assertTrue("Should have differing files", results.stream().anyMatch(r -> !r.isIdentical()));
+        for (ComparisonResult result : results) {
+            if (!result.isIdentical()) {
+                Assert.assertTrue("Comparison of " + result.getFileName() + " should be truncated",
+                    result.isTruncated());
+                Assert.assertEquals("Only the first difference of " + result.getFileName() + " should be recorded",
+                    1, result.getDifferenceCount());
+            }
+        }
+    }
+    
+    @Then("each differing file should report {int} differences")
+    public void each_differing_file_should_report_differences(int expectedDifferences) {
+        Assert.assertTrue("Should have differing files", results.stream().anyMatch(r -> !r.isIdentical()));
+        for (ComparisonResult result : results) {
+            if (!result.isIdentical()) {
+                Assert.assertFalse("Comparison of " + result.getFileName() + " should be complete",
+                    result.isTruncated());
+                Assert.assertEquals("Unexpected differences in " + result.getFileName(),
+                    expectedDifferences, result.getDifferenceCount());
+            }
+        }
+    }
+    
+    private void compareWithOptions(ComparisonOptions options) throws Exception {
+        ZipExtractor.extractZip(sourceZipPath, sourceExtractDir);
+        ZipExtractor.extractZip(targetZipPath, targetExtractDir);
+        comparator = new FileComparator(sourceExtractDir, targetExtractDir, reportDir, options);
+        
+        results = comparator.compareAllFiles();
+    }
+    
+    // A text and a CSV file that differ in the given number of lines, plus one identical file
+    private static void writeArchive(String path, int lines, String content) throws IOException {
+        File archive = new File(path);
+        archive.getParentFile().mkdirs();
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(archive))) {
+            StringBuilder text = new StringBuilder();
+            StringBuilder csv = new StringBuilder("id,value\n");
+            for (int i = 0; i < lines; i++) {
+                text.append(content).append(" line ").append(i).append("\n");
+                csv.append(i).append(",").append(content).append("\n");
+            }
+            writeEntry(zos, "notes.txt", text.toString());
+            writeEntry(zos, "data.csv", csv.toString());
+            writeEntry(zos, "unchanged.txt", "same on both sides\n");
+        }
+    }
+    
+    private static void writeEntry(ZipOutputStream zos, String name, String content) throws IOException {
+        zos.putNextEntry(new ZipEntry(name));
+        zos.write(content.getBytes(StandardCharsets.UTF_8));
+        zos.closeEntry();
+    }
+    
     private boolean hasFilesOfType(String fileType) {
         File sourceDir = new File(sourceExtractDir);
         return findFilesWithExtension(sourceDir, fileType).size() > 0;
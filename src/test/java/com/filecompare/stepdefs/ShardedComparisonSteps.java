@@ -0,0 +1,205 @@
+package com.filecompare.stepdefs;
+
+import com.filecompare.model.ComparisonOptions;
+import com.filecompare.model.ComparisonResult;
+import com.filecompare.shard.ShardMerger;
+import com.filecompare.shard.ShardResultFile;
+import com.filecompare.shard.ShardWorker;
+import com.filecompare.utils.FileComparator;
+import com.filecompare.utils.ZipExtractor;
+import io.cucumber.java.en.And;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.junit.Assert;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+public class ShardedComparisonSteps {
+    
+    private String sourceZipPath;
+    private String targetZipPath;
+    private String workDir = "temp/shards";
+    private String reportDir = "temp/shards/reports";
+    private List<ComparisonResult> mergedResults;
+    private List<File> shardFiles;
+    private List<String> sourceOnlyFiles;
+    private List<String> targetOnlyFiles;
+    private IOException mergeError;
+    
+    @Given("generated archives with {int} shared files, {int} only in the source and {int} only in the target")
+    public void generated_archives_with_shared_and_one_sided_files(int shared, int sourceOnly, int targetOnly)
+            throws Exception {
+        sourceOnlyFiles = new ArrayList<>();
+        targetOnlyFiles = new ArrayList<>();
+        List<String> sourceFiles = new ArrayList<>();
+        List<String> targetFiles = new ArrayList<>();
+        for (int i = 0; i < shared; i++) {
+            sourceFiles.add("shared/file-" + i + ".txt");
+            targetFiles.add("shared/file-" + i + ".txt");
+        }
+        for (int i = 0; i < sourceOnly; i++) {
+            sourceOnlyFiles.add("removed/file-" + i + ".txt");
+        }
+        for (int i = 0; i < targetOnly; i++) {
+            targetOnlyFiles.add("added/file-" + i + ".txt");
+        }
+        sourceFiles.addAll(sourceOnlyFiles);
+        targetFiles.addAll(targetOnlyFiles);
+        
+        sourceZipPath = "temp/shards-data/source.zip";
+        targetZipPath = "temp/shards-data/target.zip";
+        writeArchive(sourceZipPath, sourceFiles, "source");
+        writeArchive(targetZipPath, targetFiles, "target");
+    }
+    
+    @When("I compare the generated archives in {int} shards and merge the shard files")
+    public void i_compare_the_generated_archives_in_shards_and_merge(int shardCount) throws Exception {
+        i_compare_in_shards_and_merge(sourceZipPath, targetZipPath, shardCount);
+    }
+    
+    @When("I compare {string} with {string} in {int} shards and merge the shard files")
+    public void i_compare_in_shards_and_merge(String sourceZip, String targetZip, int shardCount) throws Exception {
+        sourceZipPath = sourceZip;
+        targetZipPath = targetZip;
+        
+        shardFiles = runShards("run-1", shardCount);
+        ShardMerger merger = ShardMerger.merge(shardFiles);
+        merger.generateReport(reportDir);
+        mergedResults = merger.getResults();
+    }
+    
+    @When("I compare {string} with {string} in {int} shards but merge only {int} shard files")
+    public void i_compare_in_shards_but_merge_only(String sourceZip, String targetZip, int shardCount, int merged)
+            throws Exception {
+        sourceZipPath = sourceZip;
+        targetZipPath = targetZip;
+        
+        List<File> shardFiles = runShards("run-1", shardCount);
+        try {
+            ShardMerger.merge(shardFiles.subList(0, merged)).getResults();
+        } catch (IOException e) {
+            mergeError = e;
+        }
+    }
+    
+    // Paths map to the same shard in every run, so only the run id tells the shard files apart
+    @When("I compare {string} with {string} in {int} shards and run shard {int} again as another run")
+    public void i_compare_in_shards_and_run_shard_again_as_another_run(String sourceZip, String targetZip,
+                                                                       int shardCount, int rerun) throws Exception {
+        sourceZipPath = sourceZip;
+        targetZipPath = targetZip;
+        
+        List<File> shardFiles = runShards("run-1", shardCount);
+        ShardWorker.runShard("run-2", sourceZipPath, targetZipPath, rerun, shardCount, new ComparisonOptions(), workDir)
+            .write(shardFiles.get(rerun));
+        try {
+            ShardMerger.merge(shardFiles).getResults();
+        } catch (IOException e) {
+            mergeError = e;
+        }
+    }
+    
+    @Then("the merged results should match a single comparison of both archives")
+    public void the_merged_results_should_match_a_single_comparison() throws Exception {
+        ZipExtractor.extractZip(sourceZipPath, workDir + "/single/source");
+        ZipExtractor.extractZip(targetZipPath, workDir + "/single/target");
+        FileComparator comparator = new FileComparator(workDir + "/single/source", workDir + "/single/target",
+            workDir + "/single/reports");
+        
+        Assert.assertEquals("Merged results should cover every file",
+            statusByFile(comparator.compareAllFiles()), statusByFile(mergedResults));
+    }
+    
+    @And("the merged summary report should be written")
+    public void the_merged_summary_report_should_be_written() {
+        Assert.assertTrue("Merged summary report should exist",
+            new File(reportDir, "comparison_summary.txt").exists());
+    }
+    
+    @And("every file only in the {word} should be reported once as missing in the {word}")
+    public void every_one_sided_file_should_be_reported_once_as_missing(String presentSide, String missingSide)
+            throws Exception {
+        List<String> oneSided = "source".equals(presentSide) ? sourceOnlyFiles : targetOnlyFiles;
+        String difference = "File missing in " + missingSide + " directory";
+        
+        Map<String, Integer> shardsReporting = new TreeMap<>();
+        for (File shardFile : shardFiles) {
+            for (ComparisonResult result : ShardResultFile.read(shardFile).getResults()) {
+                shardsReporting.merge(result.getFileName(), 1, Integer::sum);
+            }
+        }
+        Map<String, ComparisonResult> merged = new TreeMap<>();
+        for (ComparisonResult result : mergedResults) {
+            merged.put(result.getFileName(), result);
+        }
+        
+        for (String path : oneSided) {
+            Assert.assertEquals(path + " should be reported by exactly one shard",
+                Integer.valueOf(1), shardsReporting.get(path));
+            Assert.assertTrue(path + " should be reported as missing in the " + missingSide,
+                merged.get(path).getDifferences().contains(difference));
+        }
+    }
+    
+    @And("every shard should have compared some of the files")
+    public void every_shard_should_have_compared_some_of_the_files() throws Exception {
+        for (File shardFile : shardFiles) {
+            ShardResultFile shard = ShardResultFile.read(shardFile);
+            Assert.assertFalse("Shard " + shard.getShardIndex() + " should not be empty", shard.getResults().isEmpty());
+        }
+    }
+    
+    @Then("the merge should fail because a shard is missing")
+    public void the_merge_should_fail_because_a_shard_is_missing() {
+        Assert.assertNotNull("Merge of an incomplete shard set should fail", mergeError);
+        Assert.assertTrue(mergeError.getMessage(), mergeError.getMessage().contains("missing"));
+    }
+    
+    @Then("the merge should fail because a shard belongs to another run")
+    public void the_merge_should_fail_because_a_shard_belongs_to_another_run() {
+        Assert.assertNotNull("Merge of shards from different runs should fail", mergeError);
+        Assert.assertTrue(mergeError.getMessage(), mergeError.getMessage().contains("belongs to run run-2"));
+    }
+    
+    private List<File> runShards(String runId, int shardCount) throws Exception {
+        List<File> shardFiles = new ArrayList<>();
+        for (int shard = 0; shard < shardCount; shard++) {
+            File output = new File(workDir, "shard-" + shard + ".bin");
+            ShardWorker.runShard(runId, sourceZipPath, targetZipPath, shard, shardCount, new ComparisonOptions(),
+                workDir).write(output);
+            shardFiles.add(output);
+        }
+        return shardFiles;
+    }
+    
+    private static void writeArchive(String path, List<String> entries, String content) throws IOException {
+        File archive = new File(path);
+        archive.getParentFile().mkdirs();
+        try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(archive))) {
+            for (String entry : entries) {
+                zos.putNextEntry(new ZipEntry(entry));
+                zos.write((content + " " + entry + "\n").getBytes(StandardCharsets.UTF_8));
+                zos.closeEntry();
+            }
+        }
+    }
+    
+    private Map<String, String> statusByFile(List<ComparisonResult> results) {
+        Map<String, String> statuses = new TreeMap<>();
+        for (ComparisonResult result : results) {
+            statuses.put(result.getFileName(), (result.isIdentical() ? "IDENTICAL" : "DIFFERENT")
+                + "/" + result.getDifferenceCount());
+        }
+        return statuses;
+    }
+}
@@ -0,0 +1,51 @@
+package com.filecompare.stepdefs;
+
+import com.filecompare.model.ComparisonOptions;
+import com.filecompare.model.ComparisonResult;
+import com.filecompare.utils.FileComparator;
+import com.filecompare.utils.ZipExtractor;
+import io.cucumber.java.en.Given;
+import io.cucumber.java.en.Then;
+import io.cucumber.java.en.When;
+import org.junit.Assert;
+
+import java.io.File;
+import java.util.List;
+import java.util.stream.Collectors;
+
+// Snapshots come from -Dgate.source and -Dgate.target, the limits from -Dcompare.*
+public class SnapshotGateSteps {
+    
+    private String sourcePath;
+    private String targetPath;
+    private FileComparator comparator;
+    private List<ComparisonResult> results;
+    
+    @Given("the snapshots to gate on")
+    public void the_snapshots_to_gate_on() {
+        sourcePath = System.getProperty("gate.source", "preshot.zip");
+        targetPath = System.getProperty("gate.target", "postshot.zip");
+        Assert.assertTrue("Source snapshot does not exist: " + sourcePath, new File(sourcePath).exists());
+        Assert.assertTrue("Target snapshot does not exist: " + targetPath, new File(targetPath).exists());
+    }
+    
+    @When("I compare them with the options from system properties")
+    public void i_compare_them_with_the_options_from_system_properties() throws Exception {
+        String sourceDir = ZipExtractor.extractIfArchive(sourcePath, "temp/gate/source");
+        String targetDir = ZipExtractor.extractIfArchive(targetPath, "temp/gate/target");
+        
+        comparator = new FileComparator(sourceDir, targetDir, "reports/gate", ComparisonOptions.fromSystemProperties());
+        results = comparator.compareAllFiles();
+        comparator.generateReport();
+    }
+    
+    @Then("every file in the snapshots should be identical")
+    public void every_file_in_the_snapshots_should_be_identical() {
+        List<String> differing = results.stream()
+                .filter(result -> !result.isIdentical())
+                .map(ComparisonResult::getFileName)
+                .collect(Collectors.toList());
+        Assert.assertTrue("Snapshots differ in " + differing + ", see reports/gate/comparison_summary.txt",
+            differing.isEmpty());
+    }
+}
@@ -0,0 +1,53 @@
+Feature: Run comparisons through the comparison server
+  As a user running many small comparison jobs
+  I want to submit them to a long-running comparison server
+  So that each job does not pay for a new JVM
+
+  Scenario: Submit a comparison job and fetch its report
+    Given a comparison server is running
+    When I submit a job comparing "preshot.zip" with "postshot.zip"
+    Then the job should finish with status "COMPLETED"
+    And the job report should contain "File Comparison Summary"
+    And the job results should list every compared file
+
+  Scenario: Read the results of a job while it runs
+    Given a comparison server is running
+    And two generated archives with 2000 differing text files
+    When I submit a job comparing the generated archives
+    Then reading the job results page by page should list every generated file once
+
+  Scenario: Reject a job without a target
+    Given a comparison server is running
+    When I submit a job with only the source "preshot.zip"
+    Then the server should answer with status 400
+
+  Scenario: Reject requests for other host names
+    Given a comparison server is running
+    When I send a request for host "attacker.example:8765"
+    Then the server should answer with status 403
+
+  Scenario: Reject a job outside the allowed root
+    Given a comparison server is running
+    When I try to submit a job comparing "../preshot.zip" with "../postshot.zip"
+    Then the server should answer with status 403
+
+  Scenario: Remove job directories left by an earlier server
+    Given a job directory left behind by an earlier server
+    And a comparison server is running
+    Then the stale job directory should have been removed
+
+  Scenario: Cancel a running job
+    Given a comparison server is running
+    And two generated archives with 5000 differing text files
+    When I submit a job comparing the generated archives
+    And I cancel the job once it is running
+    Then the job should finish with status "CANCELLED"
+    And the job results should be empty or truncated
+
+  Scenario: Reject a job when the queue is full
+    Given a comparison server is running with 1 worker and a queue of 1
+    And two generated archives with 5000 differing text files
+    When I submit a job comparing the generated archives
+    And I submit a job comparing the generated archives
+    And I submit another job comparing the generated archives
+    Then the server should answer with status 503
@@ -0,0 +1,39 @@
+Feature: Watch extracted trees and re-compare changed files
+  As a user reconciling the extracted target tree
+  I want edited files to be re-compared as soon as I save them
+  So that I do not have to re-run the whole comparison
+
+  Background:
+    Given both "preshot.zip" and "postshot.zip" are extracted for watching
+    And a comparison watcher is running
+
+  Scenario: Re-compare a target file after it is edited
+    When I replace a differing target file with its source version
+    Then the watcher should report that file as identical
+
+  Scenario: Notice a file deleted from the target tree
+    When I delete that file from the target tree
+    Then the watcher should report that file as missing in target
+
+  Scenario: Notice a file created in the source tree only
+    When I create a new file in the source tree only
+    Then the watcher should report that file as missing in target
+
+  Scenario: Compare the files of a directory moved into the target tree
+    When I move a directory with 4 files into the target tree
+    Then the watcher should report every file in that directory as missing in source
+
+  Scenario: Notice a directory removed from the source tree
+    Given a directory with 4 files in both trees
+    When I remove that directory from the source tree
+    Then the watcher should report every file in that directory as missing in source
+
+  Scenario: Keep applying changes while a file is written continuously
+    When a new target file is written to continuously
+    Then the watcher should still apply a batch of changes
+
+  Scenario: Write the report again after its directory is removed
+    When the report directory is removed
+    And I replace a differing target file with its source version
+    Then the watcher should report that file as identical
+    And the summary report should be written again
@@ -31,4 +31,21 @@
       | Identical files         |
       | Files with differences  |
       | Missing files           |
-    And detailed reports for each file comparison
+    And detailed reports for each file comparison
+
+  Scenario: Stop at the first differing file
+    When I compare all files with fail-fast enabled
+    Then the comparison should stop at the first differing file
+    And the summary should say the comparison stopped early: "fail-fast, first difference found"
+
+  Scenario: Stop once the difference budget is used up
+    When I compare all files with a difference budget of 2
+    Then the comparison should record 2 differences in total
+    And the summary should say the comparison stopped early: "difference budget of 2 reached"
+
+  Scenario: Report only whether each file is identical
+    Given generated source and target archives whose files differ in 5 lines each
+    When I compare all files in identity-only mode
+    Then each differing file should stop after its first difference
+    When I compare all files without limits
+    Then each differing file should report 5 differences
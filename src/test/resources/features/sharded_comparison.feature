@@ -0,0 +1,25 @@
+Feature: Sharded comparison with result merge
+  As a user comparing very large snapshot pairs
+  I want to split the comparison into shards and merge their results
+  So that no single JVM has to hold the whole comparison
+
+  Scenario: Merged shard results match a single comparison
+    When I compare "preshot.zip" with "postshot.zip" in 3 shards and merge the shard files
+    Then the merged results should match a single comparison of both archives
+    And the merged summary report should be written
+
+  Scenario: Detect files missing on either side across shards
+    Given generated archives with 30 shared files, 10 only in the source and 10 only in the target
+    When I compare the generated archives in 3 shards and merge the shard files
+    Then the merged results should match a single comparison of both archives
+    And every file only in the source should be reported once as missing in the target
+    And every file only in the target should be reported once as missing in the source
+    And every shard should have compared some of the files
+
+  Scenario: Refuse to merge an incomplete set of shards
+    When I compare "preshot.zip" with "postshot.zip" in 3 shards but merge only 2 shard files
+    Then the merge should fail because a shard is missing
+
+  Scenario: Refuse to merge shards of different runs
+    When I compare "preshot.zip" with "postshot.zip" in 3 shards and run shard 1 again as another run
+    Then the merge should fail because a shard belongs to another run
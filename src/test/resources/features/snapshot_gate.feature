@@ -0,0 +1,10 @@
+@gate
+Feature: Gate a build on matching snapshots
+  As a CI pipeline
+  I want to fail as soon as the snapshots are known to differ
+  So that a gating run on mismatched snapshots finishes quickly
+
+  Scenario: Source and target snapshots are identical
+    Given the snapshots to gate on
+    When I compare them with the options from system properties
+    Then every file in the snapshots should be identical